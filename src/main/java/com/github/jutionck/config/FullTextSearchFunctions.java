@@ -0,0 +1,30 @@
+package com.github.jutionck.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * PostgreSQL full-text search for HQL and criteria queries. The match is rendered with the {@code @@}
+ * operator, called as a function PostgreSQL would not use the GIN index.
+ * <ul>
+ *     <li>{@code fts_match(vector, query)}: {@code vector @@ to_tsquery('simple', query)}</li>
+ *     <li>{@code fts_rank(vector, query)}: {@code ts_rank(vector, to_tsquery('simple', query))}</li>
+ * </ul>
+ * Registered through {@code META-INF/services/org.hibernate.boot.model.FunctionContributor}.
+ */
+public class FullTextSearchFunctions implements FunctionContributor {
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicType<Boolean> booleanType = functionContributions.getTypeConfiguration()
+                .getBasicTypeRegistry().resolve(StandardBasicTypes.BOOLEAN);
+        BasicType<Double> doubleType = functionContributions.getTypeConfiguration()
+                .getBasicTypeRegistry().resolve(StandardBasicTypes.DOUBLE);
+
+        functionContributions.getFunctionRegistry()
+                .registerPattern("fts_match", "(?1 @@ to_tsquery('simple', ?2))", booleanType);
+        functionContributions.getFunctionRegistry()
+                .registerPattern("fts_rank", "ts_rank(?1, to_tsquery('simple', ?2))", doubleType);
+    }
+}
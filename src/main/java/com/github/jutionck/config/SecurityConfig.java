@@ -49,6 +49,13 @@ public class SecurityConfig {
                         // Referrals - public validation for registration
                         .requestMatchers(HttpMethod.GET, "/api/v1/referrals/validate/**").permitAll()
 
+                        // WebSocket handshake - STOMP CONNECT frames are authenticated with the JWT instead
+                        .requestMatchers("/ws/**").permitAll()
+
+                        // Actuator - health is public, metrics are for admins
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+
                         // All other endpoints require authentication
                         .anyRequest().authenticated()
                 )
@@ -0,0 +1,124 @@
+package com.github.jutionck.controller;
+
+import com.github.jutionck.dto.request.ApplyVoucherRequest;
+import com.github.jutionck.dto.request.CartItemRequest;
+import com.github.jutionck.dto.request.CheckoutCartRequest;
+import com.github.jutionck.dto.request.UpdateCartItemRequest;
+import com.github.jutionck.entity.User;
+import com.github.jutionck.service.CartService;
+import com.github.jutionck.utils.ResponseUtil;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/cart")
+@RequiredArgsConstructor
+@Tag(name = "Cart", description = "Shopping cart endpoints")
+public class CartController {
+    private final CartService cartService;
+
+    @GetMapping
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'SELLER', 'ADMIN')")
+    public ResponseEntity<?> getCart(@AuthenticationPrincipal User user) {
+        return ResponseUtil.buildSingleResponse(
+                HttpStatus.OK,
+                "Cart retrieved successfully",
+                cartService.getCart(user)
+        );
+    }
+
+    @PostMapping("/items")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'SELLER', 'ADMIN')")
+    public ResponseEntity<?> addItem(
+            @Valid @RequestBody CartItemRequest request,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseUtil.buildSingleResponse(
+                HttpStatus.OK,
+                "Item added to cart",
+                cartService.addItem(user, request)
+        );
+    }
+
+    @PutMapping("/items/{productId}")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'SELLER', 'ADMIN')")
+    public ResponseEntity<?> updateItem(
+            @PathVariable UUID productId,
+            @Valid @RequestBody UpdateCartItemRequest request,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseUtil.buildSingleResponse(
+                HttpStatus.OK,
+                "Cart item updated",
+                cartService.updateItem(user, productId, request)
+        );
+    }
+
+    @DeleteMapping("/items/{productId}")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'SELLER', 'ADMIN')")
+    public ResponseEntity<?> removeItem(
+            @PathVariable UUID productId,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseUtil.buildSingleResponse(
+                HttpStatus.OK,
+                "Item removed from cart",
+                cartService.removeItem(user, productId)
+        );
+    }
+
+    @PutMapping("/voucher")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'SELLER', 'ADMIN')")
+    public ResponseEntity<?> applyVoucher(
+            @Valid @RequestBody ApplyVoucherRequest request,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseUtil.buildSingleResponse(
+                HttpStatus.OK,
+                "Voucher applied",
+                cartService.applyVoucher(user, request)
+        );
+    }
+
+    @DeleteMapping("/voucher")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'SELLER', 'ADMIN')")
+    public ResponseEntity<?> removeVoucher(@AuthenticationPrincipal User user) {
+        return ResponseUtil.buildSingleResponse(
+                HttpStatus.OK,
+                "Voucher removed",
+                cartService.removeVoucher(user)
+        );
+    }
+
+    @DeleteMapping
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'SELLER', 'ADMIN')")
+    public ResponseEntity<?> clearCart(@AuthenticationPrincipal User user) {
+        cartService.clearCart(user);
+        return ResponseUtil.buildSingleResponse(
+                HttpStatus.OK,
+                "Cart cleared",
+                null
+        );
+    }
+
+    @PostMapping("/checkout")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'SELLER', 'ADMIN')")
+    public ResponseEntity<?> checkout(
+            @Valid @RequestBody CheckoutCartRequest request,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseUtil.buildSingleResponse(
+                HttpStatus.CREATED,
+                "Order created successfully",
+                cartService.checkout(user, request)
+        );
+    }
+}
@@ -1,9 +1,17 @@
 package com.github.jutionck.controller;
 
+import com.github.jutionck.dto.request.BatchCreateOrderRequest;
+import com.github.jutionck.dto.request.BatchUpdateOrderStatusRequest;
 import com.github.jutionck.dto.request.CreateOrderRequest;
+import com.github.jutionck.dto.request.OrderSearchRequest;
 import com.github.jutionck.dto.request.UpdateOrderStatusRequest;
+import com.github.jutionck.dto.response.OrderResponse;
 import com.github.jutionck.entity.User;
+import com.github.jutionck.enums.ExportFormat;
 import com.github.jutionck.enums.UserRole;
+import com.github.jutionck.service.AsyncCheckoutService;
+import com.github.jutionck.service.IdempotencyService;
+import com.github.jutionck.service.OrderExportService;
 import com.github.jutionck.service.OrderService;
 import com.github.jutionck.utils.ResponseUtil;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -11,12 +19,20 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.UUID;
 
 @RestController
@@ -25,17 +41,68 @@ import java.util.UUID;
 @Tag(name = "Orders", description = "Order management endpoints")
 public class OrderController {
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
+    private final AsyncCheckoutService asyncCheckoutService;
+    private final OrderExportService orderExportService;
 
     @PostMapping
     @PreAuthorize("hasAnyRole('CUSTOMER', 'SELLER', 'ADMIN')")
     public ResponseEntity<?> createOrder(
             @Valid @RequestBody CreateOrderRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @AuthenticationPrincipal User customer
     ) {
+        // Retries with the same key get the order created by the first attempt
+        OrderResponse order = idempotencyKey == null
+                ? orderService.createOrder(request, customer)
+                : idempotencyService.execute(customer.getId(), idempotencyKey, request,
+                        () -> orderService.createOrder(request, customer));
+
         return ResponseUtil.buildSingleResponse(
                 HttpStatus.CREATED,
                 "Order created successfully",
-                orderService.createOrder(request, customer)
+                order
+        );
+    }
+
+    @PostMapping("/async")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'SELLER', 'ADMIN')")
+    public ResponseEntity<?> createOrderAsync(
+            @Valid @RequestBody CreateOrderRequest request,
+            @AuthenticationPrincipal User customer
+    ) {
+        // The result is pushed to /topic/checkouts/{ticket}, or can be polled below
+        return ResponseUtil.buildSingleResponse(
+                HttpStatus.ACCEPTED,
+                "Order accepted for processing",
+                asyncCheckoutService.submit(request, customer)
+        );
+    }
+
+    @GetMapping("/async/{ticket}")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'SELLER', 'ADMIN')")
+    public ResponseEntity<?> getCheckoutTicket(
+            @PathVariable UUID ticket,
+            @AuthenticationPrincipal User user
+    ) {
+        return ResponseUtil.buildSingleResponse(
+                HttpStatus.OK,
+                "Checkout status retrieved successfully",
+                asyncCheckoutService.getTicket(ticket, user)
+        );
+    }
+
+    @PostMapping("/batch")
+    @PreAuthorize("hasAnyRole('CUSTOMER', 'SELLER', 'ADMIN')")
+    public ResponseEntity<?> createOrders(
+            @Valid @RequestBody BatchCreateOrderRequest request,
+            @AuthenticationPrincipal User customer
+    ) {
+        // Each order succeeds or fails on its own, see the per-order results
+        return ResponseUtil.buildSingleResponse(
+                HttpStatus.OK,
+                "Order batch processed",
+                orderService.createOrders(request.getOrders(), customer)
         );
     }
 
@@ -43,8 +110,14 @@ public class OrderController {
     @PreAuthorize("hasAnyRole('CUSTOMER', 'SELLER', 'ADMIN')")
     public ResponseEntity<?> getOrders(
             @AuthenticationPrincipal User user,
+            @RequestParam(required = false) String cursor,
             @PageableDefault(size = 20) Pageable pageable
     ) {
+        // Any cursor parameter, even empty for the first page, switches to keyset pagination
+        if (cursor != null) {
+            return getOrdersByCursor(user, cursor, pageable.getPageSize());
+        }
+
         // Admin sees all orders
         if (user.getRole() == UserRole.ADMIN) {
             return ResponseUtil.buildPageResponse(
@@ -71,6 +144,67 @@ public class OrderController {
         );
     }
 
+    private ResponseEntity<?> getOrdersByCursor(User user, String cursor, int size) {
+        if (user.getRole() == UserRole.ADMIN) {
+            return ResponseUtil.buildCursorResponse(
+                    HttpStatus.OK,
+                    "Orders retrieved successfully",
+                    orderService.getAllOrders(cursor, size)
+            );
+        }
+
+        if (user.getRole() == UserRole.SELLER) {
+            return ResponseUtil.buildCursorResponse(
+                    HttpStatus.OK,
+                    "Orders retrieved successfully",
+                    orderService.getSellerOrders(user, cursor, size)
+            );
+        }
+
+        return ResponseUtil.buildCursorResponse(
+                HttpStatus.OK,
+                "Orders retrieved successfully",
+                orderService.getCustomerOrders(user, cursor, size)
+        );
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "csv") String format,
+            NativeWebRequest webRequest
+    ) {
+        // Rows are written while they are read, the response is not wrapped in the usual envelope
+        ExportFormat exportFormat = ExportFormat.from(format);
+        StreamingResponseBody body = orderExportService.exportOrders(from, to, exportFormat);
+
+        // Only the export gets the long timeout, other async requests keep the default
+        WebAsyncUtils.getAsyncManager(webRequest).getAsyncWebRequest().setTimeout(orderExportService.timeoutMillis());
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(orderExportService.fileName(from, to, exportFormat))
+                        .build()
+                        .toString())
+                .body(body);
+    }
+
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> searchOrders(
+            @Valid OrderSearchRequest request,
+            @RequestParam(required = false) String cursor,
+            @PageableDefault(size = 20) Pageable pageable
+    ) {
+        return ResponseUtil.buildCursorResponse(
+                HttpStatus.OK,
+                "Orders retrieved successfully",
+                orderService.searchOrders(request, cursor, pageable.getPageSize())
+        );
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('CUSTOMER', 'SELLER', 'ADMIN')")
     public ResponseEntity<?> getOrderById(
@@ -98,6 +232,20 @@ public class OrderController {
         );
     }
 
+    @PutMapping("/status:batch")
+    @PreAuthorize("hasAnyRole('SELLER', 'ADMIN')")
+    public ResponseEntity<?> updateOrderStatuses(
+            @Valid @RequestBody BatchUpdateOrderStatusRequest request,
+            @AuthenticationPrincipal User user
+    ) {
+        // Each order succeeds or fails on its own, see the per-order results
+        return ResponseUtil.buildSingleResponse(
+                HttpStatus.OK,
+                "Order statuses processed",
+                orderService.updateOrderStatuses(request, user)
+        );
+    }
+
     @PostMapping("/{id}/cancel")
     @PreAuthorize("hasAnyRole('CUSTOMER', 'ADMIN')")
     public ResponseEntity<?> cancelOrder(
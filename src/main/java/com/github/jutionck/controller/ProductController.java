@@ -2,12 +2,15 @@ package com.github.jutionck.controller;
 
 import com.github.jutionck.dto.request.ProductRequest;
 import com.github.jutionck.dto.request.ProductUpdateRequest;
+import com.github.jutionck.dto.response.ProductResponse;
 import com.github.jutionck.entity.User;
+import com.github.jutionck.service.ProductSearchIndex;
 import com.github.jutionck.service.ProductService;
 import com.github.jutionck.utils.ResponseUtil;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
@@ -25,6 +28,7 @@ import java.util.UUID;
 @Tag(name = "Products", description = "Product management endpoints")
 public class ProductController {
     private final ProductService productService;
+    private final ProductSearchIndex productSearchIndex;
 
     @PostMapping
     @PreAuthorize("hasAnyRole('SELLER', 'ADMIN')")
@@ -46,20 +50,39 @@ public class ProductController {
             @RequestParam(required = false) String brand,
             @RequestParam(required = false) BigDecimal minPrice,
             @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "false") boolean facets,
             @PageableDefault(size = 20) Pageable pageable
     ) {
+        Page<ProductResponse> page;
         if (search != null || category != null || brand != null || minPrice != null || maxPrice != null) {
-            return ResponseUtil.buildPageResponse(
+            page = productService.getProductsByFilters(search, category, brand, minPrice, maxPrice, pageable);
+        } else {
+            page = productService.getAllProducts(pageable);
+        }
+
+        if (facets) {
+            return ResponseUtil.buildProductPageResponse(
                     HttpStatus.OK,
                     "Products retrieved successfully",
-                    productService.getProductsByFilters(search, category, brand, minPrice, maxPrice, pageable)
+                    page,
+                    productService.getProductFacets(search, category, brand, minPrice, maxPrice, pageable)
             );
         }
 
         return ResponseUtil.buildPageResponse(
                 HttpStatus.OK,
                 "Products retrieved successfully",
-                productService.getAllProducts(pageable)
+                page
+        );
+    }
+
+    @PostMapping("/search-index/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> rebuildSearchIndex() {
+        return ResponseUtil.buildSingleResponse(
+                HttpStatus.OK,
+                "Product search index rebuilt",
+                productSearchIndex.rebuild()
         );
     }
 
@@ -0,0 +1,13 @@
+package com.github.jutionck.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.*;
+
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ApplyVoucherRequest {
+    @NotBlank(message = "Voucher code is required")
+    private String code;
+}
@@ -0,0 +1,18 @@
+package com.github.jutionck.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchCreateOrderRequest {
+    @NotEmpty(message = "Batch must contain at least one order")
+    @Size(max = 500, message = "Batch cannot contain more than 500 orders")
+    private List<@Valid CreateOrderRequest> orders;
+}
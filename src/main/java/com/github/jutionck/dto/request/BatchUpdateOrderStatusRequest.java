@@ -0,0 +1,25 @@
+package com.github.jutionck.dto.request;
+
+import com.github.jutionck.enums.OrderStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchUpdateOrderStatusRequest {
+    @NotEmpty(message = "Batch must contain at least one order")
+    @Size(max = 500, message = "Batch cannot contain more than 500 orders")
+    private List<@NotNull UUID> orderIds;
+
+    @NotNull(message = "Status is required")
+    private OrderStatus status;
+
+    private String cancelReason;
+}
@@ -0,0 +1,24 @@
+package com.github.jutionck.dto.request;
+
+import com.github.jutionck.entity.Address;
+import com.github.jutionck.enums.PaymentMethod;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CheckoutCartRequest {
+    @NotNull(message = "Shipping address is required")
+    private Address shippingAddress;
+
+    @NotNull(message = "Payment method is required")
+    private PaymentMethod paymentMethod;
+
+    private String referralCode;
+    private String notes;
+
+    // Quote version the customer reviewed; checkout is refused if the cart was repriced since
+    private Long quoteVersion;
+}
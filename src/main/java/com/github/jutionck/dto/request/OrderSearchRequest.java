@@ -0,0 +1,41 @@
+package com.github.jutionck.dto.request;
+
+import com.github.jutionck.enums.OrderStatus;
+import com.github.jutionck.enums.PaymentStatus;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderSearchRequest {
+    private OrderStatus status;
+
+    private PaymentStatus paymentStatus;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+
+    @Email(message = "Customer email must be valid")
+    private String customerEmail;
+
+    // Order numbers start with their creation time, shorter prefixes span weeks of orders
+    @Size(min = 8, max = 17, message = "Order number prefix must be between 8 and 17 characters")
+    private String orderNumber;
+
+    @DecimalMin(value = "0", message = "Minimum total must not be negative")
+    private BigDecimal minTotal;
+
+    @DecimalMin(value = "0", message = "Maximum total must not be negative")
+    private BigDecimal maxTotal;
+}
@@ -39,4 +39,6 @@ public class ProductRequest {
     private List<String> images;
 
     private Map<String, Object> specifications;
+
+    private Boolean hotSku;
 }
@@ -28,4 +28,5 @@ public class ProductUpdateRequest {
 
     private List<String> images;
     private Map<String, Object> specifications;
+    private Boolean hotSku;
 }
@@ -0,0 +1,33 @@
+package com.github.jutionck.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchOrderResponse {
+    private Integer total;
+    private Integer succeeded;
+    private Integer failed;
+    private List<OrderResult> results;
+
+    @Getter @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class OrderResult {
+        private Integer index;
+        private Boolean success;
+        private UUID orderId;
+        private String orderNumber;
+        private BigDecimal total;
+        private List<String> errors;
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.jutionck.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.github.jutionck.enums.OrderStatus;
+import lombok.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchOrderStatusResponse {
+    private Integer total;
+    private Integer succeeded;
+    private Integer failed;
+    private List<StatusResult> results;
+
+    @Getter @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class StatusResult {
+        private UUID orderId;
+        private Boolean success;
+        private String orderNumber;
+        private OrderStatus previousStatus;
+        private OrderStatus status;
+        private String error;
+    }
+}
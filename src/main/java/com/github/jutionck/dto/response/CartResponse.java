@@ -0,0 +1,38 @@
+package com.github.jutionck.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CartResponse {
+    private List<CartItemResponse> items;
+    private String voucherCode;
+    private String voucherError;
+    private BigDecimal subtotal;
+    private BigDecimal discount;
+    private BigDecimal shipping;
+    private BigDecimal tax;
+    private BigDecimal total;
+    private Long quoteVersion;
+
+    @Getter @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class CartItemResponse {
+        private UUID productId;
+        private String productName;
+        private BigDecimal price;
+        private Integer quantity;
+        private BigDecimal subtotal;
+        private Boolean inStock;
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.jutionck.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.github.jutionck.enums.CheckoutStatus;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CheckoutTicketResponse {
+    private UUID ticket;
+    private CheckoutStatus status;
+    private OrderResponse order;
+    private List<String> errors;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,31 @@
+package com.github.jutionck.dto.response;
+
+import com.github.jutionck.enums.OrderStatus;
+import com.github.jutionck.enums.PaymentMethod;
+import com.github.jutionck.enums.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One line of an order export. Selected directly by the export query, so streamed rows never become
+ * managed entities.
+ */
+public record OrderExportRow(
+        UUID id,
+        String orderNumber,
+        LocalDateTime createdAt,
+        String customerEmail,
+        OrderStatus status,
+        PaymentMethod paymentMethod,
+        PaymentStatus paymentStatus,
+        BigDecimal subtotal,
+        BigDecimal discount,
+        BigDecimal shipping,
+        BigDecimal tax,
+        BigDecimal total,
+        String voucherCode,
+        String referralCode
+) {
+}
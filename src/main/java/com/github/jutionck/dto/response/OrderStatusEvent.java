@@ -0,0 +1,31 @@
+package com.github.jutionck.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.github.jutionck.enums.OrderStatus;
+import com.github.jutionck.enums.PaymentStatus;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderStatusEvent {
+    private UUID orderId;
+    private String orderNumber;
+    private UUID customerId;
+    private OrderStatus previousStatus;
+    private OrderStatus status;
+    private PaymentStatus paymentStatus;
+    private String cancelReason;
+    private LocalDateTime changedAt;
+
+    // Used to route the event to seller topics, not sent to clients
+    @JsonIgnore
+    private Set<UUID> sellerIds;
+}
@@ -1,11 +1,13 @@
 package com.github.jutionck.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 
 @Getter @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class PagingResponse {
     private Integer page;
     private Integer rowsPerPage;
@@ -13,4 +15,5 @@ public class PagingResponse {
     private Integer totalPages;
     private Boolean hasNext;
     private Boolean hasPrevious;
+    private String nextCursor;
 }
@@ -0,0 +1,13 @@
+package com.github.jutionck.dto.response;
+
+/**
+ * Number of matching products for one category, brand and price bucket combination, as counted by the
+ * facet query. Price buckets are numbered from 0 in ascending order of their bounds.
+ */
+public record ProductFacetRow(
+        String category,
+        String brand,
+        Integer priceBucket,
+        Long count
+) {
+}
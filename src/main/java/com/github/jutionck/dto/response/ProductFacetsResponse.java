@@ -0,0 +1,38 @@
+package com.github.jutionck.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductFacetsResponse {
+    private List<FacetCount> categories;
+    private List<FacetCount> brands;
+    private List<PriceRangeCount> priceRanges;
+
+    @Getter @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class FacetCount {
+        private String value;
+        private Long count;
+    }
+
+    // min is inclusive and max exclusive, the first and last range are open-ended
+    @Getter @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class PriceRangeCount {
+        private BigDecimal min;
+        private BigDecimal max;
+        private Long count;
+    }
+}
@@ -0,0 +1,19 @@
+package com.github.jutionck.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.util.List;
+
+// A page of products with the facet counts of its filters
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductPageResponse {
+    private StatusResponse status;
+    private List<ProductResponse> data;
+    private PagingResponse paging;
+    private ProductFacetsResponse facets;
+}
@@ -12,7 +12,7 @@ import java.util.UUID;
 @Getter @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class ProductResponse {
     private UUID id;
@@ -23,6 +23,7 @@ public class ProductResponse {
     private String category;
     private String brand;
     private Integer stock;
+    private Boolean hotSku;
     private List<String> images;
     private SellerInfo seller;
     private Double rating;
@@ -0,0 +1,18 @@
+package com.github.jutionck.dto.response;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * The fields of a product the in-memory search index needs. Selected directly by the rebuild query, so
+ * streamed rows never become managed entities.
+ */
+public record ProductSearchRow(
+        UUID id,
+        String name,
+        String brand,
+        String category,
+        String description,
+        BigDecimal price
+) {
+}
@@ -0,0 +1,14 @@
+package com.github.jutionck.dto.response;
+
+import lombok.*;
+
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SearchIndexStatsResponse {
+    private Integer documents;
+    private Integer terms;
+    private Long postingBytes;
+    private Long buildMillis;
+}
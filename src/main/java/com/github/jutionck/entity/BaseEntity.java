@@ -1,5 +1,7 @@
 package com.github.jutionck.entity;
 
+import com.github.jutionck.utils.TimeOrderedId;
+import com.github.jutionck.utils.TimeOrderedUuidGenerator;
 import jakarta.persistence.*;
 import lombok.Getter;
 import org.springframework.data.annotation.CreatedDate;
@@ -12,11 +14,14 @@ import java.util.UUID;
 @MappedSuperclass
 @EntityListeners(AuditingEntityListener.class)
 @Getter
-public abstract class BaseEntity {
+public abstract class BaseEntity implements ReservableId {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     private UUID id;
 
+    @Transient
+    private UUID reservedId;
+
     @CreatedDate
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -24,4 +29,15 @@ public abstract class BaseEntity {
     @LastModifiedDate
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    @Override
+    public UUID reserveId() {
+        if (id != null) {
+            return id;
+        }
+        if (reservedId == null) {
+            reservedId = TimeOrderedUuidGenerator.next();
+        }
+        return reservedId;
+    }
 }
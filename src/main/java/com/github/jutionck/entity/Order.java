@@ -1,10 +1,13 @@
 package com.github.jutionck.entity;
 
+import com.github.jutionck.dto.response.OrderResponse;
 import com.github.jutionck.enums.OrderStatus;
 import com.github.jutionck.enums.PaymentMethod;
 import com.github.jutionck.enums.PaymentStatus;
+import io.hypersistence.utils.hibernate.type.json.JsonBinaryType;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Type;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -12,7 +15,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_orders_customer_created_at_id", columnList = "customer_id, created_at, id"),
+        @Index(name = "idx_orders_status_created_at_id", columnList = "status, created_at, id"),
+        @Index(name = "idx_orders_payment_status_created_at_id", columnList = "payment_status, created_at, id")
+})
 @Getter @Setter
 @NoArgsConstructor
 @AllArgsConstructor
@@ -73,4 +81,9 @@ public class Order extends BaseEntity {
     private String cancelReason;
 
     private LocalDateTime cancelledAt;
+
+    // The response as of checkout, without the status, payment and cancellation fields kept above
+    @Type(JsonBinaryType.class)
+    @Column(columnDefinition = "jsonb")
+    private OrderResponse snapshot;
 }
@@ -1,9 +1,12 @@
 package com.github.jutionck.entity;
 
+import com.github.jutionck.utils.TimeOrderedId;
+import com.github.jutionck.utils.TimeOrderedUuidGenerator;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
@@ -12,11 +15,15 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class OrderItem {
+public class OrderItem implements ReservableId {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedId
     private UUID id;
 
+    @Transient
+    @Setter(AccessLevel.NONE)
+    private UUID reservedId;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "order_id", nullable = false)
     private Order order;
@@ -33,4 +40,24 @@ public class OrderItem {
 
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal subtotal;
+
+    // Same value as the order's created_at, so an item lands in the same monthly partition as its order
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    void copyOrderCreatedAt() {
+        createdAt = order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now();
+    }
+
+    @Override
+    public UUID reserveId() {
+        if (id != null) {
+            return id;
+        }
+        if (reservedId == null) {
+            reservedId = TimeOrderedUuidGenerator.next();
+        }
+        return reservedId;
+    }
 }
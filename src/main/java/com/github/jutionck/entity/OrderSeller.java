@@ -0,0 +1,53 @@
+package com.github.jutionck.entity;
+
+import com.github.jutionck.enums.OrderStatus;
+import com.github.jutionck.utils.TimeOrderedUuidGenerator;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UuidGenerator;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One row per seller with products in an order, so seller-scoped listings and counts do not have to
+ * go through order items. {@code status} and {@code createdAt} mirror the order and are kept in sync
+ * by {@code OrderService} in the same transaction.
+ */
+@Entity
+@Table(name = "order_sellers",
+        uniqueConstraints = @UniqueConstraint(name = "uk_order_sellers_order_seller", columnNames = {"order_id", "seller_id"}),
+        indexes = {
+                @Index(name = "idx_order_sellers_seller_created_at", columnList = "seller_id, created_at, order_id"),
+                @Index(name = "idx_order_sellers_seller_status", columnList = "seller_id, status")
+        })
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderSeller {
+    @Id
+    @GeneratedValue
+    @UuidGenerator(algorithm = TimeOrderedUuidGenerator.class)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    private Order order;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "seller_id", nullable = false)
+    private User seller;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderStatus status;
+
+    // Same value as the order's created_at, so keyset cursors work on either table
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal sellerSubtotal;
+}
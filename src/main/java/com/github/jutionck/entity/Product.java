@@ -3,6 +3,7 @@ package com.github.jutionck.entity;
 import io.hypersistence.utils.hibernate.type.json.JsonBinaryType;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.Type;
 
 import java.math.BigDecimal;
@@ -11,8 +12,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+// Only changed columns are written, so an edit does not put back the stock read when the product was loaded
 @Entity
 @Table(name = "products")
+@DynamicUpdate
 @Getter @Setter
 @NoArgsConstructor
 @AllArgsConstructor
@@ -24,6 +27,16 @@ public class Product extends BaseEntity {
     @Column(length = 2000)
     private String description;
 
+    // Maintained by PostgreSQL from name and description, searched through the GIN index from import.sql.
+    // Only used inside fts_match/fts_rank, so it is lazy and never part of the products select
+    @Basic(fetch = FetchType.LAZY)
+    @Column(name = "search_vector", insertable = false, updatable = false, columnDefinition =
+            "tsvector GENERATED ALWAYS AS (" +
+            "setweight(to_tsvector('simple', coalesce(name, '')), 'A') || " +
+            "setweight(to_tsvector('simple', coalesce(description, '')), 'B')) STORED")
+    @Setter(AccessLevel.NONE)
+    private String searchVector;
+
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal price;
 
@@ -39,6 +52,10 @@ public class Product extends BaseEntity {
     @Column(nullable = false)
     private Integer stock;
 
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean hotSku = false;
+
     @ElementCollection
     @CollectionTable(name = "product_images", joinColumns = @JoinColumn(name = "product_id"))
     @Column(name = "image_url")
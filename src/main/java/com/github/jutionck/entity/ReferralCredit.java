@@ -0,0 +1,26 @@
+package com.github.jutionck.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "referral_credits", indexes = {
+        @Index(name = "idx_referral_credits_code", columnList = "code")
+})
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ReferralCredit extends BaseEntity {
+    @Column(nullable = false)
+    private String code;
+
+    @Column(nullable = false)
+    private String orderNumber;
+
+    // Set once the credit is counted in its referral code; credits are never deleted
+    @Column(name = "folded_at")
+    private LocalDateTime foldedAt;
+}
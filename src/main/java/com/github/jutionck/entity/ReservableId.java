@@ -0,0 +1,18 @@
+package com.github.jutionck.entity;
+
+import java.util.UUID;
+
+/**
+ * An entity that can take its id before it is persisted, so documents referencing it are complete in the
+ * same INSERT instead of being written by an UPDATE afterwards. The id column itself stays empty until
+ * Hibernate persists the entity, which keeps it new for Spring Data and Hibernate alike.
+ */
+public interface ReservableId {
+
+    UUID getReservedId();
+
+    /**
+     * The id the entity has, or the one it will be inserted with.
+     */
+    UUID reserveId();
+}
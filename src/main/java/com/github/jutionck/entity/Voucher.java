@@ -38,7 +38,8 @@ public class Voucher extends BaseEntity {
 
     private Integer usageLimit;
 
-    @Column(nullable = false)
+    // Only ever incremented in SQL, an entity update must not write back the count it was loaded with
+    @Column(nullable = false, updatable = false)
     @Builder.Default
     private Integer usageCount = 0;
 
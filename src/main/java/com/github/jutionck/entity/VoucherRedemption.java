@@ -0,0 +1,29 @@
+package com.github.jutionck.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "voucher_redemptions", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_voucher_redemptions_voucher_user_no", columnNames = {"voucher_id", "user_id", "redemption_no"})
+})
+@Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VoucherRedemption extends BaseEntity {
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "voucher_id", nullable = false)
+    private Voucher voucher;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @Column(nullable = false)
+    private String orderNumber;
+
+    // 1 for a user's first redemption of the voucher, 2 for the second, and so on
+    @Column(name = "redemption_no", nullable = false)
+    private Integer redemptionNo;
+}
@@ -0,0 +1,17 @@
+package com.github.jutionck.enums;
+
+import lombok.Getter;
+
+public enum CheckoutStatus {
+    QUEUED("Queued"),
+    PROCESSING("Processing"),
+    COMPLETED("Completed"),
+    FAILED("Failed");
+
+    @Getter
+    private final String displayName;
+
+    CheckoutStatus(String displayName) {
+        this.displayName = displayName;
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.jutionck.enums;
+
+import com.github.jutionck.exceptions.ValidationException;
+import lombok.Getter;
+
+@Getter
+public enum ExportFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public static ExportFormat from(String value) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new ValidationException("Unsupported export format: " + value);
+    }
+}
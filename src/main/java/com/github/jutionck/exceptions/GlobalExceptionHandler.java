@@ -43,6 +43,16 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyKeyMismatch(IdempotencyKeyMismatchException ex) {
+        log.error("Idempotency-Key mismatch: {}", ex.getMessage());
+        return ResponseUtil.buildErrorResponse(
+            HttpStatus.UNPROCESSABLE_ENTITY,
+            "Unprocessable Entity - Idempotency-Key reused with a different request",
+            List.of(ex.getMessage())
+        );
+    }
+
     @ExceptionHandler(UnauthorizedException.class)
     public ResponseEntity<ErrorResponse> handleUnauthorized(UnauthorizedException ex) {
         log.error("Unauthorized: {}", ex.getMessage());
@@ -63,6 +73,16 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler(RateLimitException.class)
+    public ResponseEntity<ErrorResponse> handleRateLimit(RateLimitException ex) {
+        log.error("Rate limited: {}", ex.getMessage());
+        return ResponseUtil.buildErrorResponse(
+            HttpStatus.TOO_MANY_REQUESTS,
+            "Too Many Requests - Please retry later",
+            List.of(ex.getMessage())
+        );
+    }
+
     @ExceptionHandler(InvalidFileException.class)
     public ResponseEntity<ErrorResponse> handleInvalidFile(InvalidFileException ex) {
         log.error("Invalid file: {}", ex.getMessage());
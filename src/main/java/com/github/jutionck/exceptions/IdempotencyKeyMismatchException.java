@@ -0,0 +1,7 @@
+package com.github.jutionck.exceptions;
+
+public class IdempotencyKeyMismatchException extends RuntimeException {
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.jutionck.repository;
+
+import com.github.jutionck.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, UUID> {
+    // Find a stored response by user and key
+    Optional<IdempotencyRecord> findByUserIdAndIdempotencyKey(UUID userId, String idempotencyKey);
+
+    // Remove a user's key once it is past the retention window, so it can be used again
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM IdempotencyRecord r " +
+           "WHERE r.userId = :userId AND r.idempotencyKey = :idempotencyKey AND r.createdAt < :cutoff")
+    int deleteExpired(@Param("userId") UUID userId,
+                      @Param("idempotencyKey") String idempotencyKey,
+                      @Param("cutoff") LocalDateTime cutoff);
+
+    // Remove keys older than the retention window
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
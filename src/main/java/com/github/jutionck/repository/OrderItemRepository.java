@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -15,12 +16,19 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, UUID> {
     // Find order items by product (useful for checking if product can be deleted)
     List<OrderItem> findByProductId(UUID productId);
 
+    // Total quantity per product over several orders, used to restock cancelled orders in one pass
+    @Query("SELECT oi.product.id, SUM(oi.quantity) FROM OrderItem oi " +
+           "WHERE oi.order.id IN :orderIds " +
+           "GROUP BY oi.product.id")
+    List<Object[]> sumQuantitiesByProduct(@Param("orderIds") Collection<UUID> orderIds);
+
     // Get top selling products for a seller
     @Query("SELECT oi.product.id, oi.product.name, SUM(oi.quantity) as totalQuantity, SUM(oi.subtotal) as totalRevenue " +
            "FROM OrderItem oi " +
            "JOIN oi.product p " +
            "JOIN oi.order o " +
            "WHERE p.seller.id = :sellerId AND o.createdAt BETWEEN :startDate AND :endDate " +
+           "AND oi.createdAt BETWEEN :startDate AND :endDate " +
            "GROUP BY oi.product.id, oi.product.name " +
            "ORDER BY totalRevenue DESC")
     List<Object[]> findTopSellingProducts(@Param("sellerId") UUID sellerId,
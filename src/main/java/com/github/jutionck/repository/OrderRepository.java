@@ -1,19 +1,30 @@
 package com.github.jutionck.repository;
 
+import com.github.jutionck.dto.response.OrderExportRow;
 import com.github.jutionck.entity.Order;
 import com.github.jutionck.enums.OrderStatus;
+import com.github.jutionck.enums.PaymentStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, UUID>, JpaSpecificationExecutor<Order> {
@@ -24,46 +35,120 @@ public interface OrderRepository extends JpaRepository<Order, UUID>, JpaSpecific
     Page<Order> findByCustomerIdAndStatus(UUID customerId, OrderStatus status, Pageable pageable);
 
     // Find orders containing products from a seller
-    @Query("SELECT DISTINCT o FROM Order o " +
-           "JOIN o.items oi " +
-           "JOIN oi.product p " +
-           "WHERE p.seller.id = :sellerId")
+    @Query(value = "SELECT o FROM Order o " +
+                   "JOIN OrderSeller os ON os.order = o " +
+                   "WHERE os.seller.id = :sellerId",
+           countQuery = "SELECT COUNT(os) FROM OrderSeller os WHERE os.seller.id = :sellerId")
     Page<Order> findOrdersBySellerId(@Param("sellerId") UUID sellerId, Pageable pageable);
 
     // Find orders by seller and status
-    @Query("SELECT DISTINCT o FROM Order o " +
-           "JOIN o.items oi " +
-           "JOIN oi.product p " +
-           "WHERE p.seller.id = :sellerId AND o.status = :status")
+    @Query(value = "SELECT o FROM Order o " +
+                   "JOIN OrderSeller os ON os.order = o " +
+                   "WHERE os.seller.id = :sellerId AND os.status = :status",
+           countQuery = "SELECT COUNT(os) FROM OrderSeller os WHERE os.seller.id = :sellerId AND os.status = :status")
     Page<Order> findOrdersBySellerIdAndStatus(@Param("sellerId") UUID sellerId, @Param("status") OrderStatus status, Pageable pageable);
 
-    // Check if order contains seller's product
-    @Query("SELECT CASE WHEN COUNT(oi) > 0 THEN true ELSE false END FROM Order o " +
-           "JOIN o.items oi " +
-           "JOIN oi.product p " +
-           "WHERE o.id = :orderId AND p.seller.id = :sellerId")
-    boolean orderContainsSellerProduct(@Param("orderId") UUID orderId, @Param("sellerId") UUID sellerId);
+    // Keyset pages, newest first. The *After variants continue below a (createdAt, id) cursor.
+    @Query("SELECT o FROM Order o ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findLatest(Limit limit);
+
+    @Query("SELECT o FROM Order o WHERE (o.createdAt, o.id) < (:createdAt, :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findLatestAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id, Limit limit);
+
+    @Query("SELECT o FROM Order o WHERE o.customer.id = :customerId ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findLatestByCustomerId(@Param("customerId") UUID customerId, Limit limit);
+
+    @Query("SELECT o FROM Order o WHERE o.customer.id = :customerId AND (o.createdAt, o.id) < (:createdAt, :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findLatestByCustomerIdAfter(@Param("customerId") UUID customerId,
+                                            @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") UUID id,
+                                            Limit limit);
+
+    @Query("SELECT o FROM Order o JOIN OrderSeller os ON os.order = o " +
+           "WHERE os.seller.id = :sellerId " +
+           "ORDER BY os.createdAt DESC, os.order.id DESC")
+    List<Order> findLatestBySellerId(@Param("sellerId") UUID sellerId, Limit limit);
+
+    @Query("SELECT o FROM Order o JOIN OrderSeller os ON os.order = o " +
+           "WHERE os.seller.id = :sellerId AND (os.createdAt, os.order.id) < (:createdAt, :id) " +
+           "ORDER BY os.createdAt DESC, os.order.id DESC")
+    List<Order> findLatestBySellerIdAfter(@Param("sellerId") UUID sellerId,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") UUID id,
+                                          Limit limit);
+
+    // Load customers, items and products of orders without a snapshot that are already in the persistence context
+    @Query("SELECT DISTINCT o FROM Order o " +
+           "JOIN FETCH o.customer " +
+           "LEFT JOIN FETCH o.items oi " +
+           "LEFT JOIN FETCH oi.product " +
+           "WHERE o.id IN :ids")
+    List<Order> fetchItemsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // Lock a set of orders in id order so concurrent batch updates cannot apply the same change twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids ORDER BY o.id")
+    List<Order> findAllByIdInForUpdate(@Param("ids") Collection<UUID> ids);
+
+    // Set-based status changes for the batch endpoint; updatedAt is set here because auditing does not run
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :now WHERE o.id IN :ids")
+    int updateStatusByIdIn(@Param("ids") Collection<UUID> ids,
+                           @Param("status") OrderStatus status,
+                           @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.paymentStatus = :paymentStatus, o.updatedAt = :now " +
+           "WHERE o.id IN :ids")
+    int updateStatusAndPaymentByIdIn(@Param("ids") Collection<UUID> ids,
+                                     @Param("status") OrderStatus status,
+                                     @Param("paymentStatus") PaymentStatus paymentStatus,
+                                     @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.paymentStatus = :paymentStatus, " +
+           "o.cancelReason = :reason, o.cancelledAt = :now, o.updatedAt = :now WHERE o.id IN :ids")
+    int cancelByIdIn(@Param("ids") Collection<UUID> ids,
+                     @Param("status") OrderStatus status,
+                     @Param("paymentStatus") PaymentStatus paymentStatus,
+                     @Param("reason") String reason,
+                     @Param("now") LocalDateTime now);
 
     // Find order by order number
     Optional<Order> findByOrderNumber(String orderNumber);
 
+    // Single order, bounded on created_at so partitioned orders are only probed in the matching months
+    @Query("SELECT o FROM Order o WHERE o.id = :id AND o.createdAt BETWEEN :from AND :to")
+    Optional<Order> findByIdCreatedBetween(@Param("id") UUID id,
+                                           @Param("from") LocalDateTime from,
+                                           @Param("to") LocalDateTime to);
+
     // Count orders by status for seller
-    @Query("SELECT COUNT(DISTINCT o) FROM Order o " +
-           "JOIN o.items oi " +
-           "JOIN oi.product p " +
-           "WHERE p.seller.id = :sellerId AND o.status = :status")
+    @Query("SELECT COUNT(os) FROM OrderSeller os WHERE os.seller.id = :sellerId AND os.status = :status")
     Long countBySellerIdAndStatus(@Param("sellerId") UUID sellerId, @Param("status") OrderStatus status);
 
     // Get orders within date range for analytics
     @Query("SELECT o FROM Order o WHERE o.createdAt BETWEEN :startDate AND :endDate")
     List<Order> findOrdersBetweenDates(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
 
-    // Get seller's orders within date range
-    @Query("SELECT DISTINCT o FROM Order o " +
-           "JOIN o.items oi " +
-           "JOIN oi.product p " +
-           "WHERE p.seller.id = :sellerId AND o.createdAt BETWEEN :startDate AND :endDate")
+    // Get seller's orders within date range; the bound on o.createdAt lets partitioned orders skip other months
+    @Query("SELECT o FROM Order o " +
+           "JOIN OrderSeller os ON os.order = o " +
+           "WHERE os.seller.id = :sellerId AND os.createdAt BETWEEN :startDate AND :endDate " +
+           "AND o.createdAt BETWEEN :startDate AND :endDate")
     List<Order> findSellerOrdersBetweenDates(@Param("sellerId") UUID sellerId,
                                              @Param("startDate") LocalDateTime startDate,
                                              @Param("endDate") LocalDateTime endDate);
+
+    // Export rows in [from, to), read from a server-side cursor; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.github.jutionck.dto.response.OrderExportRow(" +
+           "o.id, o.orderNumber, o.createdAt, c.email, o.status, o.paymentMethod, o.paymentStatus, " +
+           "o.subtotal, o.discount, o.shipping, o.tax, o.total, o.voucherCode, o.referralCode) " +
+           "FROM Order o JOIN o.customer c " +
+           "WHERE o.createdAt >= :from AND o.createdAt < :to " +
+           "ORDER BY o.createdAt, o.id")
+    Stream<OrderExportRow> streamForExport(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
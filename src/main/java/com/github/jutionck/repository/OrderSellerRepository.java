@@ -0,0 +1,32 @@
+package com.github.jutionck.repository;
+
+import com.github.jutionck.entity.OrderSeller;
+import com.github.jutionck.enums.OrderStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+@Repository
+public interface OrderSellerRepository extends JpaRepository<OrderSeller, UUID> {
+    // Mirror an order status change on all of its seller rows
+    @Modifying
+    @Query("UPDATE OrderSeller os SET os.status = :status WHERE os.order.id = :orderId")
+    int updateStatus(@Param("orderId") UUID orderId, @Param("status") OrderStatus status);
+
+    @Modifying
+    @Query("UPDATE OrderSeller os SET os.status = :status WHERE os.order.id IN :orderIds")
+    int updateStatusByOrderIdIn(@Param("orderIds") Collection<UUID> orderIds, @Param("status") OrderStatus status);
+
+    // Which of the given orders contain products of the seller
+    @Query("SELECT os.order.id FROM OrderSeller os WHERE os.seller.id = :sellerId AND os.order.id IN :orderIds")
+    Set<UUID> findOrderIdsBySellerId(@Param("sellerId") UUID sellerId, @Param("orderIds") Collection<UUID> orderIds);
+
+    @Query("SELECT os.seller.id FROM OrderSeller os WHERE os.order.id = :orderId")
+    Set<UUID> findSellerIdsByOrderId(@Param("orderId") UUID orderId);
+}
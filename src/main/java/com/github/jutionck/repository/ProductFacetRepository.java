@@ -0,0 +1,17 @@
+package com.github.jutionck.repository;
+
+import com.github.jutionck.dto.response.ProductFacetRow;
+import com.github.jutionck.entity.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface ProductFacetRepository {
+    /**
+     * Counts the products matching {@code spec} per category, brand and price bucket in one grouped
+     * query. Bucket {@code i} holds prices below {@code priceBounds[i]} and at or above the previous
+     * bound; the last bucket holds everything from the highest bound up.
+     */
+    List<ProductFacetRow> countFacets(Specification<Product> spec, List<BigDecimal> priceBounds);
+}
@@ -0,0 +1,50 @@
+package com.github.jutionck.repository;
+
+import com.github.jutionck.dto.response.ProductFacetRow;
+import com.github.jutionck.entity.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class ProductFacetRepositoryImpl implements ProductFacetRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductFacetRow> countFacets(Specification<Product> spec, List<BigDecimal> priceBounds) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductFacetRow> query = cb.createQuery(ProductFacetRow.class);
+        Root<Product> root = query.from(Product.class);
+
+        Expression<Integer> priceBucket = priceBucket(cb, root.get("price"), priceBounds);
+        query.select(cb.construct(ProductFacetRow.class,
+                root.get("category"), root.get("brand"), priceBucket, cb.count(root)));
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.groupBy(root.get("category"), root.get("brand"), priceBucket);
+
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    private Expression<Integer> priceBucket(CriteriaBuilder cb, Expression<BigDecimal> price, List<BigDecimal> bounds) {
+        if (bounds.isEmpty()) {
+            return cb.literal(0);
+        }
+        CriteriaBuilder.Case<Integer> bucket = cb.selectCase();
+        for (int i = 0; i < bounds.size(); i++) {
+            bucket = bucket.when(cb.lessThan(price, bounds.get(i)), i);
+        }
+        return bucket.otherwise(bounds.size());
+    }
+}
@@ -1,19 +1,30 @@
 package com.github.jutionck.repository;
 
+import com.github.jutionck.dto.response.ProductSearchRow;
 import com.github.jutionck.entity.Product;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, UUID>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, UUID>, JpaSpecificationExecutor<Product>,
+        ProductFacetRepository {
     // Find products by seller
     Page<Product> findBySellerId(UUID sellerId, Pageable pageable);
 
@@ -28,13 +39,43 @@ public interface ProductRepository extends JpaRepository<Product, UUID>, JpaSpec
     @Query("SELECT DISTINCT p.brand FROM Product p ORDER BY p.brand")
     List<String> findDistinctBrands();
 
-    // Search products by name or description
-    @Query("SELECT p FROM Product p WHERE " +
-           "LOWER(p.name) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(p.description) LIKE LOWER(CONCAT('%', :search, '%'))")
-    Page<Product> searchProducts(@Param("search") String search, Pageable pageable);
+    // Number of products per category and per brand, loaded into the category/brand cache
+    @Query("SELECT p.category, COUNT(p) FROM Product p GROUP BY p.category")
+    List<Object[]> countByCategory();
+
+    @Query("SELECT p.brand, COUNT(p) FROM Product p GROUP BY p.brand")
+    List<Object[]> countByBrand();
+
+    // Every product's searchable fields, streamed from a server-side cursor to build the in-memory index
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.github.jutionck.dto.response.ProductSearchRow(p.id, p.name, p.brand, p.category, p.description, p.price) " +
+           "FROM Product p")
+    Stream<ProductSearchRow> streamForSearchIndex();
 
     // Get low stock products for a seller
     @Query("SELECT p FROM Product p WHERE p.seller.id = :sellerId AND p.stock <= :threshold ORDER BY p.stock ASC")
     List<Product> findLowStockProducts(@Param("sellerId") UUID sellerId, @Param("threshold") Integer threshold);
+
+    // Reserve stock atomically, returns 0 when the product does not have enough stock left
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock - :quantity WHERE p.id = :productId AND p.stock >= :quantity")
+    int decrementStock(@Param("productId") UUID productId, @Param("quantity") int quantity);
+
+    // Apply a relative stock change, used for restocking and ledger flushes
+    @Modifying
+    @Query("UPDATE Product p SET p.stock = p.stock + :delta WHERE p.id = :productId")
+    int adjustStock(@Param("productId") UUID productId, @Param("delta") int delta);
+
+    // Current stock of a single product
+    @Query("SELECT p.stock FROM Product p WHERE p.id = :productId")
+    Optional<Integer> findStockById(@Param("productId") UUID productId);
+
+    // Id and stock of products flagged as hot SKUs
+    @Query("SELECT p.id, p.stock FROM Product p WHERE p.hotSku = true")
+    List<Object[]> findHotSkuStock();
+
+    // Lock the products of a whole order batch, in id order like single checkouts
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findAllByIdInForUpdate(@Param("ids") Collection<UUID> ids);
 }
@@ -2,6 +2,8 @@ package com.github.jutionck.repository;
 
 import com.github.jutionck.entity.ReferralCode;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -25,6 +27,17 @@ public interface ReferralCodeRepository extends JpaRepository<ReferralCode, UUID
     // Find active referral codes by user
     List<ReferralCode> findByUserIdAndIsActive(UUID userId, Boolean isActive);
 
+    // Active referral codes of a user as [code, unfolded credits] rows. One statement reads both, so a
+    // fold committing meanwhile is either fully counted in the code or still pending, never both
+    @Query("SELECT rc, (SELECT COUNT(c) FROM ReferralCredit c WHERE c.code = rc.code AND c.foldedAt IS NULL) " +
+           "FROM ReferralCode rc WHERE rc.user.id = :userId AND rc.isActive = true")
+    List<Object[]> findActiveByUserIdWithPendingCredits(@Param("userId") UUID userId);
+
+    // Active referral code by code as a [code, unfolded credits] row, read like the above
+    @Query("SELECT rc, (SELECT COUNT(c) FROM ReferralCredit c WHERE c.code = rc.code AND c.foldedAt IS NULL) " +
+           "FROM ReferralCode rc WHERE rc.code = :code AND rc.isActive = true")
+    List<Object[]> findActiveByCodeWithPendingCredits(@Param("code") String code);
+
     // Check if user already has active referral code
     boolean existsByUserIdAndIsActive(UUID userId, Boolean isActive);
 }
@@ -0,0 +1,34 @@
+package com.github.jutionck.repository;
+
+import com.github.jutionck.entity.ReferralCredit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Repository
+public interface ReferralCreditRepository extends JpaRepository<ReferralCredit, UUID> {
+    // Add a batch of pending credits to referral_codes and mark them folded, in one statement.
+    // The credits stay as the log of every earning. Credits whose code does not exist are marked
+    // folded without effect. Returns the number of referral codes updated.
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "WITH batch AS (" +
+            "  UPDATE referral_credits SET folded_at = :now WHERE id IN (" +
+            "    SELECT id FROM referral_credits WHERE folded_at IS NULL " +
+            "    ORDER BY created_at LIMIT :batchSize FOR UPDATE SKIP LOCKED" +
+            "  ) RETURNING code" +
+            "), totals AS (" +
+            "  SELECT code, COUNT(*) AS credits FROM batch GROUP BY code" +
+            ") " +
+            "UPDATE referral_codes rc SET " +
+            "  usage_count = rc.usage_count + totals.credits, " +
+            "  total_earnings = rc.total_earnings + totals.credits * rc.reward_amount, " +
+            "  updated_at = :now " +
+            "FROM totals WHERE rc.code = totals.code")
+    int foldPendingCredits(@Param("batchSize") int batchSize, @Param("now") LocalDateTime now);
+}
@@ -20,10 +20,8 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     boolean existsByEmailAndIdNot(String email, UUID id);
 
     // For Customer analytics - get customers who ordered from a specific seller
-    @Query("SELECT DISTINCT u FROM User u " +
-           "JOIN Order o ON o.customer.id = u.id " +
-           "JOIN OrderItem oi ON oi.order.id = o.id " +
-           "JOIN Product p ON oi.product.id = p.id " +
-           "WHERE p.seller.id = :sellerId AND u.role = 'CUSTOMER'")
+    @Query("SELECT u FROM User u " +
+           "WHERE u.role = 'CUSTOMER' AND EXISTS (" +
+           "SELECT 1 FROM OrderSeller os WHERE os.seller.id = :sellerId AND os.order.customer = u)")
     Page<User> findCustomersBySellerId(@Param("sellerId") UUID sellerId, Pageable pageable);
 }
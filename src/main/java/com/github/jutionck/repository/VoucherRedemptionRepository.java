@@ -0,0 +1,46 @@
+package com.github.jutionck.repository;
+
+import com.github.jutionck.entity.VoucherRedemption;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface VoucherRedemptionRepository extends JpaRepository<VoucherRedemption, UUID> {
+    // Record the redemption under the user's next redemption number and bump the voucher usage count in
+    // one statement. A concurrent redemption by the same user claims the same number first, so the unique
+    // key skips this one. Returns 0 when either the global or the per-user limit has been reached; the
+    // redemption row may then already be written and the caller's transaction must roll back.
+    @Modifying
+    @Query(nativeQuery = true, value =
+            "WITH claimed AS (" +
+            "  INSERT INTO voucher_redemptions (id, voucher_id, user_id, order_number, redemption_no, created_at) " +
+            "  SELECT :id, v.id, :userId, :orderNumber, n.redemption_no, :now FROM vouchers v, " +
+            "    (SELECT COUNT(*) + 1 AS redemption_no FROM voucher_redemptions r " +
+            "     WHERE r.voucher_id = :voucherId AND r.user_id = :userId) n " +
+            "  WHERE v.id = :voucherId AND (v.user_usage_limit IS NULL OR n.redemption_no <= v.user_usage_limit) " +
+            "  ON CONFLICT (voucher_id, user_id, redemption_no) DO NOTHING " +
+            "  RETURNING voucher_id" +
+            ") " +
+            "UPDATE vouchers SET usage_count = usage_count + 1, updated_at = :now " +
+            "WHERE id IN (SELECT voucher_id FROM claimed) " +
+            "AND (usage_limit IS NULL OR usage_count < usage_limit)")
+    int redeem(@Param("id") UUID id,
+               @Param("voucherId") UUID voucherId,
+               @Param("userId") UUID userId,
+               @Param("orderNumber") String orderNumber,
+               @Param("now") LocalDateTime now);
+
+    // Redemptions of a user per voucher, as [voucherId, count] rows
+    @Query("SELECT r.voucher.id, COUNT(r) FROM VoucherRedemption r " +
+           "WHERE r.user.id = :userId AND r.voucher.id IN :voucherIds GROUP BY r.voucher.id")
+    List<Object[]> countByUserGroupedByVoucher(@Param("userId") UUID userId,
+                                               @Param("voucherIds") Collection<UUID> voucherIds);
+}
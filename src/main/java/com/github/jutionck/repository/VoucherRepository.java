@@ -2,14 +2,19 @@ package com.github.jutionck.repository;
 
 import com.github.jutionck.entity.Voucher;
 import com.github.jutionck.enums.VoucherType;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -40,4 +45,14 @@ public interface VoucherRepository extends JpaRepository<Voucher, UUID> {
 
     // Find active vouchers by type
     Page<Voucher> findByIsActiveAndType(Boolean isActive, VoucherType type, Pageable pageable);
+
+    // Lock the vouchers used by an order batch so usage counts can be checked in memory
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM Voucher v WHERE v.code IN :codes ORDER BY v.id")
+    List<Voucher> findAllByCodeInForUpdate(@Param("codes") Collection<String> codes);
+
+    // Add the redemptions of an order batch to a voucher locked by the batch
+    @Modifying
+    @Query("UPDATE Voucher v SET v.usageCount = v.usageCount + :count WHERE v.id = :voucherId")
+    int incrementUsageCount(@Param("voucherId") UUID voucherId, @Param("count") int count);
 }
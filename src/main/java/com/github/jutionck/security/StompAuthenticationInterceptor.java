@@ -0,0 +1,138 @@
+package com.github.jutionck.security;
+
+import com.github.jutionck.entity.User;
+import com.github.jutionck.enums.UserRole;
+import com.github.jutionck.exceptions.JwtAuthenticationException;
+import com.github.jutionck.exceptions.UnauthorizedException;
+import com.github.jutionck.service.AsyncCheckoutService;
+import com.github.jutionck.service.OrderStatusPublisher;
+import com.github.jutionck.service.UserService;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Authenticates STOMP sessions with the same JWT as the REST API and guards topic subscriptions.
+ * <p>
+ * Browsers cannot set headers on the WebSocket handshake, so the token is sent as an
+ * {@code Authorization: Bearer ...} header on the STOMP {@code CONNECT} frame instead. Users may only
+ * subscribe to their own order and seller topics and to checkout tickets they submitted; admins may
+ * subscribe to any topic. Clients may only send to {@code /app} destinations, never to a topic.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StompAuthenticationInterceptor implements ChannelInterceptor {
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String APPLICATION_PREFIX = "/app/";
+    private static final String BROKER_PREFIX = "/topic";
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final UserService userService;
+    // Looked up lazily, the checkout service needs the broker this interceptor is registered on
+    private final ObjectProvider<AsyncCheckoutService> asyncCheckoutService;
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null) {
+            return message;
+        }
+
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+            User user = authenticate(accessor.getFirstNativeHeader("Authorization"));
+            accessor.setUser(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            User user = currentUser(accessor);
+            if (!canSubscribe(user, accessor.getDestination())) {
+                log.warn("User {} may not subscribe to {}", user.getEmail(), accessor.getDestination());
+                throw new UnauthorizedException("You don't have permission to subscribe to this topic");
+            }
+        } else if (StompCommand.SEND.equals(accessor.getCommand())) {
+            User user = currentUser(accessor);
+            if (!canSend(accessor.getDestination())) {
+                log.warn("User {} may not send to {}", user.getEmail(), accessor.getDestination());
+                throw new UnauthorizedException("You don't have permission to send to this destination");
+            }
+        }
+        return message;
+    }
+
+    private User authenticate(String header) {
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            throw new JwtAuthenticationException("Missing bearer token");
+        }
+
+        String token = header.substring(BEARER_PREFIX.length());
+        jwtTokenProvider.verifyToken(token);
+        return (User) userService.loadUserByUsername(jwtTokenProvider.extractUsername(token));
+    }
+
+    private User currentUser(StompHeaderAccessor accessor) {
+        if (accessor.getUser() instanceof UsernamePasswordAuthenticationToken authentication
+                && authentication.getPrincipal() instanceof User user) {
+            return user;
+        }
+        throw new JwtAuthenticationException("STOMP session is not authenticated");
+    }
+
+    // Topics are only written by the server; the simple broker would relay a client SEND to every subscriber
+    private boolean canSend(String destination) {
+        if (destination == null || destination.startsWith(BROKER_PREFIX)) {
+            return false;
+        }
+        return destination.startsWith(APPLICATION_PREFIX);
+    }
+
+    private boolean canSubscribe(User user, String destination) {
+        if (destination == null) {
+            return false;
+        }
+        if (user.getRole() == UserRole.ADMIN) {
+            return true;
+        }
+
+        // /topic/orders/{customerId}
+        if (destination.startsWith(OrderStatusPublisher.CUSTOMER_TOPIC_PREFIX)) {
+            UUID id = parseId(destination.substring(OrderStatusPublisher.CUSTOMER_TOPIC_PREFIX.length()));
+            return user.getId().equals(id);
+        }
+
+        // /topic/checkouts/{ticket}
+        if (destination.startsWith(AsyncCheckoutService.TICKET_TOPIC_PREFIX)) {
+            UUID ticket = parseId(destination.substring(AsyncCheckoutService.TICKET_TOPIC_PREFIX.length()));
+            return ticket != null && asyncCheckoutService.getObject().isTicketOwner(ticket, user.getId());
+        }
+
+        // /topic/seller/{sellerId}/orders
+        int prefix = OrderStatusPublisher.SELLER_TOPIC_PREFIX.length();
+        int suffix = OrderStatusPublisher.SELLER_TOPIC_SUFFIX.length();
+        if (destination.startsWith(OrderStatusPublisher.SELLER_TOPIC_PREFIX)
+                && destination.endsWith(OrderStatusPublisher.SELLER_TOPIC_SUFFIX)
+                && destination.length() > prefix + suffix) {
+            UUID id = parseId(destination.substring(prefix, destination.length() - suffix));
+            return user.getId().equals(id);
+        }
+
+        return false;
+    }
+
+    private UUID parseId(String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -26,9 +26,9 @@ public class AdminSeeder implements CommandLineRunner {
 
     @Override
     public void run(String... args) {
-        if (userRepository.existsByUsername(ADMIN_USERNAME)) return;
+        if (userRepository.existsByEmail(ADMIN_USERNAME)) return;
         userRepository.save(User.builder()
-                .username(ADMIN_USERNAME)
+                .email(ADMIN_USERNAME).firstName("Admin").lastName("Admin")
                 .password(passwordEncoder.encode(ADMIN_PASSWORD))
                 .role(UserRole.ADMIN)
                 .enabled(true)
@@ -0,0 +1,150 @@
+package com.github.jutionck.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.jutionck.dto.request.CreateOrderRequest;
+import com.github.jutionck.dto.response.CheckoutTicketResponse;
+import com.github.jutionck.dto.response.OrderResponse;
+import com.github.jutionck.entity.User;
+import com.github.jutionck.enums.CheckoutStatus;
+import com.github.jutionck.exceptions.RateLimitException;
+import com.github.jutionck.exceptions.ResourceNotFoundException;
+import com.github.jutionck.exceptions.ValidationException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs checkouts off the request thread.
+ * <p>
+ * {@link #submit} queues the order and returns a ticket right away. A fixed number of virtual-thread
+ * workers drain the queue through {@link OrderService#createOrder}, so a burst of checkouts waits in a
+ * bounded queue instead of holding request threads and database connections. The outcome is pushed to
+ * {@code /topic/checkouts/{ticket}} and can also be polled with {@link #getTicket}. When the queue is full
+ * the checkout is rejected and the client should retry later.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AsyncCheckoutService {
+    public static final String TICKET_TOPIC_PREFIX = "/topic/checkouts/";
+
+    private final OrderService orderService;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private ThreadPoolExecutor executor;
+    private Cache<UUID, Ticket> tickets;
+
+    @Value("${checkout.async.workers:16}")
+    private int workers;
+
+    @Value("${checkout.async.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${checkout.async.ticket-ttl-minutes:30}")
+    private long ticketTtlMinutes;
+
+    @PostConstruct
+    void init() {
+        executor = new ThreadPoolExecutor(
+                workers,
+                workers,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofVirtual().name("checkout-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        tickets = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(ticketTtlMinutes))
+                .build();
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        // Let queued checkouts finish, their clients are waiting for a result
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Async checkout pool did not drain, {} checkout(s) dropped", executor.shutdownNow().size());
+        }
+    }
+
+    public CheckoutTicketResponse submit(CreateOrderRequest request, User customer) {
+        UUID ticketId = UUID.randomUUID();
+        Ticket ticket = new Ticket(customer.getId(), CheckoutTicketResponse.builder()
+                .ticket(ticketId)
+                .status(CheckoutStatus.QUEUED)
+                .submittedAt(LocalDateTime.now())
+                .build());
+        tickets.put(ticketId, ticket);
+
+        try {
+            executor.execute(() -> process(ticketId, ticket, request, customer));
+        } catch (RejectedExecutionException e) {
+            tickets.invalidate(ticketId);
+            log.warn("Async checkout queue is full, rejecting order for customer: {}", customer.getEmail());
+            throw new RateLimitException("Checkout queue is full, please retry shortly");
+        }
+
+        log.info("Queued checkout {} for customer: {}", ticketId, customer.getEmail());
+        return ticket.response;
+    }
+
+    public CheckoutTicketResponse getTicket(UUID ticketId, User user) {
+        Ticket ticket = tickets.getIfPresent(ticketId);
+        // Tickets of other users are reported as missing rather than forbidden
+        if (ticket == null || !ticket.ownerId.equals(user.getId())) {
+            throw new ResourceNotFoundException("Checkout ticket not found");
+        }
+        return ticket.response;
+    }
+
+    public boolean isTicketOwner(UUID ticketId, UUID userId) {
+        Ticket ticket = tickets.getIfPresent(ticketId);
+        return ticket != null && ticket.ownerId.equals(userId);
+    }
+
+    private void process(UUID ticketId, Ticket ticket, CreateOrderRequest request, User customer) {
+        ticket.response = ticket.response.toBuilder().status(CheckoutStatus.PROCESSING).build();
+
+        CheckoutTicketResponse.CheckoutTicketResponseBuilder result = ticket.response.toBuilder()
+                .status(CheckoutStatus.FAILED);
+        try {
+            OrderResponse order = orderService.createOrder(request, customer);
+            result.status(CheckoutStatus.COMPLETED).order(order);
+        } catch (ValidationException e) {
+            result.errors(e.getErrors());
+        } catch (ResourceNotFoundException e) {
+            result.errors(List.of(e.getMessage()));
+        } catch (RuntimeException e) {
+            log.error("Async checkout {} failed", ticketId, e);
+            result.errors(List.of("Order could not be processed, please try again"));
+        }
+
+        ticket.response = result.completedAt(LocalDateTime.now()).build();
+        messagingTemplate.convertAndSend(TICKET_TOPIC_PREFIX + ticketId, ticket.response);
+    }
+
+    private static final class Ticket {
+        private final UUID ownerId;
+        private volatile CheckoutTicketResponse response;
+
+        private Ticket(UUID ownerId, CheckoutTicketResponse response) {
+            this.ownerId = ownerId;
+            this.response = response;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.jutionck.service;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A priced cart, amounts in cents. Built by {@link OrderService#quoteCart} and turned into an order by
+ * {@link OrderService#createOrderFromQuote} without pricing it again.
+ */
+public record CartQuote(
+        List<Line> lines,
+        UUID voucherId,
+        String voucherCode,
+        LocalDateTime voucherValidUntil,
+        String voucherError,
+        PricingEngine.Totals totals
+) {
+    // Products and voucher whose changes make this quote stale
+    public Set<UUID> dependencies() {
+        Set<UUID> ids = new HashSet<>();
+        lines.forEach(line -> ids.add(line.productId()));
+        if (voucherId != null) {
+            ids.add(voucherId);
+        }
+        return ids;
+    }
+
+    // Same items at the same prices, stock availability aside
+    public boolean samePricesAs(CartQuote other) {
+        if (!totals.equals(other.totals) || !Objects.equals(voucherCode, other.voucherCode)
+                || lines.size() != other.lines.size()) {
+            return false;
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            Line line = lines.get(i);
+            Line otherLine = other.lines.get(i);
+            if (!line.productId().equals(otherLine.productId()) || line.quantity() != otherLine.quantity()
+                    || line.unitPrice() != otherLine.unitPrice()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public record Line(UUID productId, String productName, int quantity, long unitPrice, long lineTotal, boolean inStock) { }
+}
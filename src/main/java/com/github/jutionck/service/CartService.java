@@ -0,0 +1,236 @@
+package com.github.jutionck.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.jutionck.dto.request.ApplyVoucherRequest;
+import com.github.jutionck.dto.request.CartItemRequest;
+import com.github.jutionck.dto.request.CheckoutCartRequest;
+import com.github.jutionck.dto.request.UpdateCartItemRequest;
+import com.github.jutionck.dto.response.CartResponse;
+import com.github.jutionck.dto.response.OrderResponse;
+import com.github.jutionck.entity.User;
+import com.github.jutionck.exceptions.ResourceNotFoundException;
+import com.github.jutionck.exceptions.ValidationException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-side shopping carts with a cached price quote per cart.
+ * <p>
+ * Carts live in memory, one per user, and are dropped after a period of inactivity. The priced quote is
+ * kept until the cart is edited, a product or voucher it depends on changes (see {@link PriceVersions}),
+ * or it reaches its maximum age, so repeated cart views do not hit the database. Checkout turns the
+ * current quote into an order and only revalidates stock and the voucher redemption.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CartService {
+    private final OrderService orderService;
+    private final PriceVersions priceVersions;
+
+    private final AtomicLong quoteSequence = new AtomicLong();
+    private Cache<UUID, Cart> carts;
+
+    @Value("${cart.ttl-hours:72}")
+    private long ttlHours;
+
+    @Value("${cart.max-carts:100000}")
+    private long maxCarts;
+
+    @Value("${cart.max-items:100}")
+    private int maxItems;
+
+    @Value("${cart.quote-ttl-seconds:300}")
+    private long quoteTtlSeconds;
+
+    @PostConstruct
+    void initCache() {
+        carts = Caffeine.newBuilder()
+                .maximumSize(maxCarts)
+                .expireAfterAccess(Duration.ofHours(ttlHours))
+                .build();
+    }
+
+    public CartResponse getCart(User user) {
+        Cart cart = cartOf(user);
+        synchronized (cart) {
+            return mapToResponse(currentQuote(cart));
+        }
+    }
+
+    public CartResponse addItem(User user, CartItemRequest request) {
+        Cart cart = cartOf(user);
+        synchronized (cart) {
+            if (!cart.items.containsKey(request.getProductId()) && cart.items.size() >= maxItems) {
+                throw new ValidationException("Cart cannot contain more than " + maxItems + " products");
+            }
+            cart.items.merge(request.getProductId(), request.getQuantity(), Integer::sum);
+            cart.quote = null;
+
+            PricedCart priced = currentQuote(cart);
+            if (priced.quote.lines().stream().noneMatch(line -> line.productId().equals(request.getProductId()))) {
+                throw new ResourceNotFoundException("Product not found with id: " + request.getProductId());
+            }
+            return mapToResponse(priced);
+        }
+    }
+
+    public CartResponse updateItem(User user, UUID productId, UpdateCartItemRequest request) {
+        Cart cart = cartOf(user);
+        synchronized (cart) {
+            if (!cart.items.containsKey(productId)) {
+                throw new ResourceNotFoundException("Product is not in the cart: " + productId);
+            }
+            cart.items.put(productId, request.getQuantity());
+            cart.quote = null;
+            return mapToResponse(currentQuote(cart));
+        }
+    }
+
+    public CartResponse removeItem(User user, UUID productId) {
+        Cart cart = cartOf(user);
+        synchronized (cart) {
+            if (cart.items.remove(productId) == null) {
+                throw new ResourceNotFoundException("Product is not in the cart: " + productId);
+            }
+            cart.quote = null;
+            return mapToResponse(currentQuote(cart));
+        }
+    }
+
+    public CartResponse applyVoucher(User user, ApplyVoucherRequest request) {
+        Cart cart = cartOf(user);
+        synchronized (cart) {
+            String previous = cart.voucherCode;
+            cart.voucherCode = request.getCode();
+            cart.quote = null;
+
+            PricedCart priced = currentQuote(cart);
+            if (priced.quote.voucherError() != null) {
+                // Keep the cart as it was, a voucher that does not apply is never stored
+                cart.voucherCode = previous;
+                cart.quote = null;
+                throw new ValidationException(priced.quote.voucherError());
+            }
+            return mapToResponse(priced);
+        }
+    }
+
+    public CartResponse removeVoucher(User user) {
+        Cart cart = cartOf(user);
+        synchronized (cart) {
+            cart.voucherCode = null;
+            cart.quote = null;
+            return mapToResponse(currentQuote(cart));
+        }
+    }
+
+    public void clearCart(User user) {
+        carts.invalidate(user.getId());
+    }
+
+    /**
+     * Places an order for the cart at its current quote. When the client sends the {@code quoteVersion}
+     * it reviewed, the order is refused if the cart has been repriced since. The cart is emptied once
+     * the order exists.
+     */
+    public OrderResponse checkout(User user, CheckoutCartRequest request) {
+        Cart cart = cartOf(user);
+        synchronized (cart) {
+            if (cart.items.isEmpty()) {
+                throw new ValidationException("Cart is empty");
+            }
+
+            PricedCart priced = currentQuote(cart);
+            if (request.getQuoteVersion() != null && request.getQuoteVersion() != priced.version) {
+                throw new ValidationException("Cart prices have changed, please review your cart");
+            }
+            if (priced.quote.voucherError() != null) {
+                throw new ValidationException(priced.quote.voucherError());
+            }
+
+            OrderResponse order = orderService.createOrderFromQuote(priced.quote, request, user);
+            carts.invalidate(user.getId());
+            return order;
+        }
+    }
+
+    private Cart cartOf(User user) {
+        return carts.get(user.getId(), id -> new Cart());
+    }
+
+    // Caller holds the cart lock
+    private PricedCart currentQuote(Cart cart) {
+        PricedCart priced = cart.quote;
+        if (priced != null
+                && System.nanoTime() - priced.pricedAtNanos < Duration.ofSeconds(quoteTtlSeconds).toNanos()
+                && priceVersions.unchangedSince(priced.quote.dependencies(), priced.stamp)) {
+            return priced;
+        }
+
+        // Aged from before the inputs are read, so a quote never outlives the stamps that can invalidate it
+        long stamp = priceVersions.stamp();
+        long pricedAtNanos = System.nanoTime();
+        CartQuote quote = orderService.quoteCart(cart.items, cart.voucherCode);
+
+        // Products that no longer exist drop out of the cart
+        if (quote.lines().size() != cart.items.size()) {
+            cart.items.keySet().removeIf(productId ->
+                    quote.lines().stream().noneMatch(line -> line.productId().equals(productId)));
+        }
+
+        PricedCart fresh = new PricedCart(quote, nextVersion(priced, quote), stamp, pricedAtNanos);
+        cart.quote = fresh;
+        return fresh;
+    }
+
+    // A repriced cart keeps its version when nothing the customer sees has changed
+    private long nextVersion(PricedCart previous, CartQuote quote) {
+        if (previous != null && previous.quote.samePricesAs(quote)) {
+            return previous.version;
+        }
+        return quoteSequence.incrementAndGet();
+    }
+
+    private CartResponse mapToResponse(PricedCart priced) {
+        CartQuote quote = priced.quote;
+        return CartResponse.builder()
+                .items(quote.lines().stream()
+                        .map(line -> CartResponse.CartItemResponse.builder()
+                                .productId(line.productId())
+                                .productName(line.productName())
+                                .price(PricingEngine.toAmount(line.unitPrice()))
+                                .quantity(line.quantity())
+                                .subtotal(PricingEngine.toAmount(line.lineTotal()))
+                                .inStock(line.inStock())
+                                .build())
+                        .toList())
+                .voucherCode(quote.voucherCode())
+                .voucherError(quote.voucherError())
+                .subtotal(PricingEngine.toAmount(quote.totals().subtotal()))
+                .discount(PricingEngine.toAmount(quote.totals().discount()))
+                .shipping(PricingEngine.toAmount(quote.totals().shipping()))
+                .tax(PricingEngine.toAmount(quote.totals().tax()))
+                .total(PricingEngine.toAmount(quote.totals().total()))
+                .quoteVersion(priced.version)
+                .build();
+    }
+
+    private static final class Cart {
+        private final Map<UUID, Integer> items = new LinkedHashMap<>();
+        private String voucherCode;
+        private PricedCart quote;
+    }
+
+    private record PricedCart(CartQuote quote, long version, long stamp, long pricedAtNanos) { }
+}
@@ -0,0 +1,247 @@
+package com.github.jutionck.service;
+
+import com.github.jutionck.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Distinct product categories and brands, kept in memory so the storefront does not scan the products
+ * table on every page load.
+ * <p>
+ * Each value is counted by the number of products that have it. {@link ProductService} reports products
+ * that are created, deleted or moved to another category or brand once the change commits. A value is
+ * listed while its count is above zero. The counts are loaded once the application is ready and reloaded
+ * on {@code product.category-brand-cache.reload-cron}. The reload also picks up rows written outside
+ * {@link ProductService}, such as bulk imports.
+ * <p>
+ * Counts are not idempotent, so a change must reach the new counts either through the reload's snapshot
+ * or through replay, never both. A reported change holds a shared lock until its transaction completes.
+ * The reload takes that lock exclusively while both counts run in one snapshot. So no reported change
+ * is in flight while the snapshot is taken, and only changes that commit after it are replayed. Product
+ * writes wait for the two count queries while a reload runs.
+ * <p>
+ * Until the first load, lists are read from the database. Reads are published as the {@code cache.gets}
+ * metric with {@code cache=product-categories} or {@code cache=product-brands}. A read from the database
+ * counts as a miss.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CategoryBrandCache {
+    private final ProductRepository productRepository;
+    private final MeterRegistry meterRegistry;
+    private final PlatformTransactionManager transactionManager;
+
+    // Shared by transactions that reported a change, exclusive while a reload takes its snapshot
+    private final ReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    private final ReentrantLock reloading = new ReentrantLock();
+
+    private ValueCounts categories;
+    private ValueCounts brands;
+    private Counter categoryHits;
+    private Counter categoryMisses;
+    private Counter brandHits;
+    private Counter brandMisses;
+
+    // Guarded by this; changes are also recorded in pendingChanges while a reload runs
+    private List<Runnable> pendingChanges;
+
+    // Published after every change, read without locking
+    private volatile List<String> categoryList;
+    private volatile List<String> brandList;
+
+    @PostConstruct
+    void initMetrics() {
+        categoryHits = counter("product-categories", "hit");
+        categoryMisses = counter("product-categories", "miss");
+        brandHits = counter("product-brands", "hit");
+        brandMisses = counter("product-brands", "miss");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    @Scheduled(cron = "${product.category-brand-cache.reload-cron:0 0 * * * *}")
+    public void reload() {
+        if (!reloading.tryLock()) {
+            return;
+        }
+
+        try {
+            ValueCounts[] fresh;
+            snapshotLock.writeLock().lock();
+            try {
+                synchronized (this) {
+                    pendingChanges = new ArrayList<>();
+                }
+                fresh = snapshotTransaction().execute(tx -> new ValueCounts[]{
+                        ValueCounts.of(productRepository.countByCategory()),
+                        ValueCounts.of(productRepository.countByBrand())
+                });
+            } finally {
+                snapshotLock.writeLock().unlock();
+            }
+
+            synchronized (this) {
+                categories = fresh[0];
+                brands = fresh[1];
+                pendingChanges.forEach(Runnable::run);
+                publish();
+                log.info("Loaded {} product categories and {} brands", categoryList.size(), brandList.size());
+            }
+        } finally {
+            synchronized (this) {
+                pendingChanges = null;
+            }
+            reloading.unlock();
+        }
+    }
+
+    public List<String> getCategories() {
+        return read(categoryList, categoryHits, categoryMisses, productRepository::findDistinctCategories);
+    }
+
+    public List<String> getBrands() {
+        return read(brandList, brandHits, brandMisses, productRepository::findDistinctBrands);
+    }
+
+    public void productAdded(String category, String brand) {
+        afterCommit(() -> {
+            categories.add(category, 1);
+            brands.add(brand, 1);
+        });
+    }
+
+    public void productRemoved(String category, String brand) {
+        afterCommit(() -> {
+            categories.add(category, -1);
+            brands.add(brand, -1);
+        });
+    }
+
+    public void productChanged(String oldCategory, String oldBrand, String category, String brand) {
+        if (oldCategory.equals(category) && oldBrand.equals(brand)) {
+            return;
+        }
+        afterCommit(() -> {
+            categories.add(oldCategory, -1);
+            categories.add(category, 1);
+            brands.add(oldBrand, -1);
+            brands.add(brand, 1);
+        });
+    }
+
+    private List<String> read(List<String> values, Counter hits, Counter misses, Supplier<List<String>> database) {
+        if (values != null) {
+            hits.increment();
+            return values;
+        }
+        misses.increment();
+        return database.get();
+    }
+
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(change);
+            return;
+        }
+
+        // Held until the transaction completes, so a reload cannot take its snapshot in between
+        snapshotLock.readLock().lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(change);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                snapshotLock.readLock().unlock();
+            }
+        });
+    }
+
+    // Both counts see the same committed products
+    private TransactionTemplate snapshotTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        template.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        return template;
+    }
+
+    private synchronized void apply(Runnable change) {
+        if (categories != null) {
+            change.run();
+            publish();
+        }
+        if (pendingChanges != null) {
+            pendingChanges.add(change);
+        }
+    }
+
+    private void publish() {
+        categoryList = categories.values();
+        brandList = brands.values();
+    }
+
+    private Counter counter(String cache, String result) {
+        return Counter.builder("cache.gets")
+                .tag("cache", cache)
+                .tag("result", result)
+                .description("The number of times cache lookup methods have returned a cached (hit) or uncached (miss) value")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Number of products per value, in the order the lists are returned.
+     */
+    private static final class ValueCounts {
+        // Case-insensitive first, close to how the database sorts the same values
+        private final NavigableMap<String, Long> counts =
+                new TreeMap<>(String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder()));
+
+        static ValueCounts of(List<Object[]> rows) {
+            ValueCounts valueCounts = new ValueCounts();
+            for (Object[] row : rows) {
+                valueCounts.counts.put((String) row[0], (Long) row[1]);
+            }
+            return valueCounts;
+        }
+
+        // A value is dropped once no product has it
+        void add(String value, long delta) {
+            counts.compute(value, (v, count) -> {
+                long updated = (count != null ? count : 0) + delta;
+                return updated > 0 ? updated : null;
+            });
+        }
+
+        List<String> values() {
+            return List.copyOf(counts.keySet());
+        }
+    }
+}
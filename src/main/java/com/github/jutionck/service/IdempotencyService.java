@@ -0,0 +1,197 @@
+package com.github.jutionck.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.jutionck.dto.response.OrderResponse;
+import com.github.jutionck.entity.IdempotencyRecord;
+import com.github.jutionck.exceptions.IdempotencyKeyMismatchException;
+import com.github.jutionck.exceptions.ResourceDuplicateException;
+import com.github.jutionck.exceptions.ValidationException;
+import com.github.jutionck.repository.IdempotencyRecordRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Makes order creation safe to retry with an {@code Idempotency-Key} header.
+ * <p>
+ * A completed key returns the stored {@link OrderResponse} instead of creating another order. Requests
+ * that arrive while the first one with the same key is still running wait for it and get its result.
+ * Responses are kept in a bounded in-memory cache in front of the {@code idempotency_keys} table; the row
+ * is written in the same transaction as the order, so a key is either stored together with its order or
+ * not at all, and its unique constraint settles races between instances. A key past its TTL is deleted in
+ * that same transaction before it is stored again.
+ * <p>
+ * Each key remembers a hash of the request body it was first used with. Reusing it with a different body
+ * is rejected with {@link IdempotencyKeyMismatchException} rather than answered with an unrelated order.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private Cache<String, Stored> completed;
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${idempotency.cache-size:10000}")
+    private long cacheSize;
+
+    @Value("${idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    @PostConstruct
+    void initCache() {
+        completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(Duration.ofHours(ttlHours))
+                .build();
+    }
+
+    public OrderResponse execute(UUID userId, String idempotencyKey, Object request, Supplier<OrderResponse> action) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ValidationException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String cacheKey = userId + ":" + idempotencyKey;
+        String requestHash = hash(request);
+        Stored cached = completed.getIfPresent(cacheKey);
+        if (cached != null) {
+            return cached.responseFor(requestHash);
+        }
+
+        InFlight own = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(cacheKey, own);
+        if (running != null) {
+            requireSameRequest(running.requestHash(), requestHash);
+            return await(running.result());
+        }
+
+        try {
+            Stored stored = findStored(userId, idempotencyKey)
+                    .orElseGet(() -> runAndStore(userId, idempotencyKey, requestHash, action));
+            completed.put(cacheKey, stored);
+            OrderResponse response = stored.responseFor(requestHash);
+            own.result().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            // Failures are not remembered, a retry with the same key runs again
+            own.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(cacheKey, own);
+        }
+    }
+
+    @Transactional
+    @Scheduled(cron = "${idempotency.cleanup-cron:0 0 * * * *}")
+    public void deleteExpiredKeys() {
+        int deleted = idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(ttlHours));
+        if (deleted > 0) {
+            log.info("Deleted {} expired idempotency key(s)", deleted);
+        }
+    }
+
+    private Stored runAndStore(UUID userId, String idempotencyKey, String requestHash, Supplier<OrderResponse> action) {
+        try {
+            return transactionTemplate.execute(status -> {
+                // An expired row the cleanup has not reached yet would otherwise fail the insert below
+                idempotencyRecordRepository.deleteExpired(userId, idempotencyKey, cutoff());
+                OrderResponse response = action.get();
+                idempotencyRecordRepository.saveAndFlush(IdempotencyRecord.builder()
+                        .userId(userId)
+                        .idempotencyKey(idempotencyKey)
+                        .requestHash(requestHash)
+                        .response(response)
+                        .build());
+                return new Stored(requestHash, response);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another instance committed the same key first, our order was rolled back
+            log.info("Idempotency-Key {} was completed concurrently, returning stored response", idempotencyKey);
+            return findStored(userId, idempotencyKey).orElseThrow(() -> e);
+        }
+    }
+
+    private Optional<Stored> findStored(UUID userId, String idempotencyKey) {
+        LocalDateTime cutoff = cutoff();
+        return idempotencyRecordRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                .filter(record -> record.getCreatedAt().isAfter(cutoff))
+                .map(record -> new Stored(record.getRequestHash(), record.getResponse()));
+    }
+
+    private LocalDateTime cutoff() {
+        return LocalDateTime.now().minusHours(ttlHours);
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not hash the request for its Idempotency-Key", e);
+        }
+    }
+
+    private static void requireSameRequest(String expectedHash, String requestHash) {
+        if (!expectedHash.equals(requestHash)) {
+            throw new IdempotencyKeyMismatchException("This Idempotency-Key was already used with a different request");
+        }
+    }
+
+    private OrderResponse await(CompletableFuture<OrderResponse> running) {
+        try {
+            return running.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ResourceDuplicateException("A request with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceDuplicateException("A request with this Idempotency-Key is still being processed");
+        }
+    }
+
+    private record Stored(String requestHash, OrderResponse response) {
+        OrderResponse responseFor(String requestHash) {
+            requireSameRequest(this.requestHash, requestHash);
+            return response;
+        }
+    }
+
+    private record InFlight(String requestHash, CompletableFuture<OrderResponse> result) {
+    }
+}
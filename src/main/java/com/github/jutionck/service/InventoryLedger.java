@@ -0,0 +1,417 @@
+package com.github.jutionck.service;
+
+import com.github.jutionck.repository.ProductRepository;
+import com.github.jutionck.utils.UuidUtil;
+import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory stock ledger for products flagged as hot SKUs.
+ * <p>
+ * While {@code inventory.ledger.enabled} is on, the ledger is the source of truth for the stock of
+ * flagged products: reservations are taken synchronously from striped, CAS-only counters so concurrent
+ * checkouts of the same SKU do not serialize on its {@code products} row. The net change is written back
+ * to {@code products.stock} in batches by {@link #flush()}, and the ledger is rebuilt from the database
+ * on startup. On shutdown, once the web server has stopped taking requests, new reservations are refused
+ * and the ledger is flushed. Changes that have not been flushed yet are only lost if the process dies, so
+ * keep the flush interval short.
+ * <p>
+ * The ledger assumes it is the only one selling its SKUs: two instances would each load the full stock
+ * from the same row. The first instance to start holds a PostgreSQL advisory lock for as long as it runs,
+ * and any other instance with the ledger enabled fails to start.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InventoryLedger implements SmartLifecycle {
+    // Arbitrary application-wide key of the advisory lock that keeps the ledger to a single instance
+    private static final long SINGLE_INSTANCE_LOCK = 0x1A7E_D6E2L;
+
+    private final ProductRepository productRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final DataSource dataSource;
+
+    private final Map<UUID, StripedStock> ledger = new ConcurrentHashMap<>();
+
+    // Session that holds the single-instance lock; closing it releases the lock
+    private Connection lockConnection;
+    private volatile boolean running;
+
+    @Value("${inventory.ledger.enabled:false}")
+    private boolean enabled;
+
+    @Value("${inventory.ledger.stripes:0}")
+    private int stripes;
+
+    // Starts before and stops after the web server, so no request sees the ledger half loaded or flushed
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    @Override
+    public void start() {
+        if (enabled) {
+            acquireSingleInstanceLock();
+            rebuild();
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Picks up give-backs of transactions that were still completing when the ledger stopped
+    @PreDestroy
+    public void close() {
+        flush();
+        if (lockConnection != null) {
+            try {
+                lockConnection.close();
+            } catch (SQLException e) {
+                log.warn("Failed to release the inventory ledger lock: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void rebuild() {
+        ledger.clear();
+        for (Object[] row : productRepository.findHotSkuStock()) {
+            ledger.put((UUID) row[0], new StripedStock(stripeCount(), (Integer) row[1]));
+        }
+        log.info("Inventory ledger rebuilt with {} hot SKU(s)", ledger.size());
+    }
+
+    private void acquireSingleInstanceLock() {
+        try {
+            Connection connection = dataSource.getConnection();
+            connection.setAutoCommit(true);
+            try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+                statement.setLong(1, SINGLE_INSTANCE_LOCK);
+                try (ResultSet result = statement.executeQuery()) {
+                    if (result.next() && result.getBoolean(1)) {
+                        lockConnection = connection;
+                        return;
+                    }
+                }
+            }
+            connection.close();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not acquire the inventory ledger lock", e);
+        }
+        throw new IllegalStateException("The inventory ledger is already enabled on another instance; " +
+                "it supports a single instance only, disable it with inventory.ledger.enabled=false");
+    }
+
+    public boolean isTracked(UUID productId) {
+        return enabled && ledger.containsKey(productId);
+    }
+
+    public Integer availableStock(UUID productId, Integer fallback) {
+        StripedStock stock = enabled ? ledger.get(productId) : null;
+        return stock != null ? (int) stock.available() : fallback;
+    }
+
+    /**
+     * Reserves stock for several tracked products at once. Either every product is reserved, or nothing
+     * is held and the ids of the products that could not be served are returned. A successful reservation
+     * is handed back automatically if the surrounding transaction rolls back. Nothing is reserved once the
+     * ledger is shutting down.
+     */
+    public List<UUID> reserveAll(Map<UUID, Integer> quantities) {
+        if (!running) {
+            return new ArrayList<>(quantities.keySet());
+        }
+        List<UUID> failed = new ArrayList<>();
+        Map<UUID, StripedStock> taken = new HashMap<>();
+
+        quantities.forEach((productId, quantity) -> {
+            StripedStock stock = ledger.get(productId);
+            if (stock != null && stock.tryTake(quantity)) {
+                taken.put(productId, stock);
+            } else {
+                failed.add(productId);
+            }
+        });
+
+        if (!failed.isEmpty()) {
+            taken.forEach((productId, stock) -> giveBack(productId, stock, quantities.get(productId)));
+            return failed;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        taken.forEach((productId, stock) -> giveBack(productId, stock, quantities.get(productId)));
+                    }
+                }
+            });
+        }
+        return failed;
+    }
+
+    /**
+     * Returns stock to a tracked product, e.g. when an order is cancelled. Applied once the surrounding
+     * transaction commits.
+     */
+    public void release(UUID productId, int quantity) {
+        afterCommit(() -> giveBack(productId, null, quantity));
+    }
+
+    /**
+     * Moves the available stock of a tracked product to {@code newStock}, e.g. when a seller edits it.
+     * The difference goes through the ledger so the database is only ever written by {@link #flush()}.
+     */
+    public void setStock(UUID productId, int newStock) {
+        afterCommit(() -> {
+            StripedStock stock = ledger.get(productId);
+            if (stock != null) {
+                stock.reset(Math.max(newStock, 0));
+            }
+        });
+    }
+
+    public void track(UUID productId) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> productRepository.findStockById(productId)
+                .ifPresent(current -> ledger.putIfAbsent(productId, new StripedStock(stripeCount(), current))));
+    }
+
+    public void untrack(UUID productId) {
+        afterCommit(() -> {
+            StripedStock stock = ledger.remove(productId);
+            if (stock != null) {
+                writeBack(Map.of(productId, stock.drainPending()));
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval-ms:500}")
+    public void flush() {
+        if (!enabled || ledger.isEmpty()) {
+            return;
+        }
+
+        // Sorted so the batch locks rows in the same order as checkouts do
+        Map<UUID, Long> deltas = new TreeMap<>(UuidUtil.DATABASE_ORDER);
+        ledger.forEach((productId, stock) -> {
+            long delta = stock.drainPending();
+            if (delta != 0) {
+                deltas.put(productId, delta);
+            }
+        });
+
+        if (!deltas.isEmpty()) {
+            writeBack(deltas);
+        }
+    }
+
+    private void writeBack(Map<UUID, Long> deltas) {
+        try {
+            newTransaction().executeWithoutResult(tx ->
+                    deltas.forEach((productId, delta) -> productRepository.adjustStock(productId, delta.intValue())));
+            log.debug("Flushed stock for {} hot SKU(s)", deltas.size());
+        } catch (RuntimeException e) {
+            log.error("Failed to flush inventory ledger, will retry: {}", e.getMessage());
+            deltas.forEach((productId, delta) -> {
+                StripedStock stock = ledger.get(productId);
+                if (stock != null) {
+                    stock.addPending(delta);
+                }
+            });
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Hands stock back to the counter it was taken from, or to the current one when {@code taken} is null.
+     * A counter that has left the ledger was already written back to the row by {@link #untrack}, so the
+     * quantity then goes to the row instead. The check and the give run atomically with that removal.
+     */
+    private void giveBack(UUID productId, StripedStock taken, int quantity) {
+        boolean[] given = {false};
+        ledger.computeIfPresent(productId, (id, stock) -> {
+            if (taken == null || stock == taken) {
+                stock.give(quantity);
+                given[0] = true;
+            }
+            return stock;
+        });
+        if (!given[0]) {
+            newTransaction().executeWithoutResult(tx -> productRepository.adjustStock(productId, quantity));
+        }
+    }
+
+    // Writes may run from afterCommit callbacks, so they always get a transaction of their own
+    private TransactionTemplate newTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+
+    private int stripeCount() {
+        int count = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+        return count <= 1 ? 1 : Integer.highestOneBit(count - 1) << 1;
+    }
+
+    /**
+     * Stock counter split across stripes that each sit on their own cache line. A thread takes from its
+     * home stripe first and only walks the other stripes when that one runs dry. Near sell-out, or while
+     * the stock is being reset, a take can briefly fail while another thread is handing stock back; callers
+     * treat that as out of stock.
+     */
+    static final class StripedStock {
+        // 8 longs = 64 bytes, keeps neighbouring stripes off each other's cache line
+        private static final int PAD = 8;
+
+        private final AtomicLongArray available;
+        private final AtomicLongArray pending;
+        private final int mask;
+
+        StripedStock(int stripes, long stock) {
+            this.available = new AtomicLongArray(stripes * PAD);
+            this.pending = new AtomicLongArray(stripes * PAD);
+            this.mask = stripes - 1;
+            for (int i = 0; i < stripes; i++) {
+                available.set(i * PAD, stock / stripes);
+            }
+            available.addAndGet(0, stock % stripes);
+        }
+
+        boolean tryTake(int quantity) {
+            int home = homeStripe();
+            long[] taken = new long[mask + 1];
+            long missing = quantity;
+
+            for (int i = 0; i <= mask && missing > 0; i++) {
+                int stripe = (home + i) & mask;
+                long got = takeUpTo(stripe, missing);
+                taken[stripe] = got;
+                missing -= got;
+            }
+
+            if (missing > 0) {
+                for (int stripe = 0; stripe <= mask; stripe++) {
+                    if (taken[stripe] > 0) {
+                        available.addAndGet(stripe * PAD, taken[stripe]);
+                    }
+                }
+                return false;
+            }
+
+            pending.addAndGet(home * PAD, -quantity);
+            return true;
+        }
+
+        /**
+         * Sets the available stock to {@code stock}. Every stripe is emptied with an atomic swap, so the
+         * pending change is exactly what was taken out versus what is put back, whatever checkouts do in
+         * between, and no stripe ever goes negative. Stock handed back during the reset lands on top of
+         * the new value. Resets are serialized with each other, takes and gives stay lock-free.
+         */
+        synchronized void reset(long stock) {
+            long drained = 0;
+            for (int stripe = 0; stripe <= mask; stripe++) {
+                drained += available.getAndSet(stripe * PAD, 0);
+            }
+            int stripes = mask + 1;
+            for (int stripe = 0; stripe <= mask; stripe++) {
+                available.addAndGet(stripe * PAD, stock / stripes + (stripe == 0 ? stock % stripes : 0));
+            }
+            pending.addAndGet(homeStripe() * PAD, stock - drained);
+        }
+
+        void give(long quantity) {
+            int home = homeStripe();
+            available.addAndGet(home * PAD, quantity);
+            pending.addAndGet(home * PAD, quantity);
+        }
+
+        void addPending(long delta) {
+            pending.addAndGet(homeStripe() * PAD, delta);
+        }
+
+        long available() {
+            long total = 0;
+            for (int stripe = 0; stripe <= mask; stripe++) {
+                total += available.get(stripe * PAD);
+            }
+            return total;
+        }
+
+        long drainPending() {
+            long total = 0;
+            for (int stripe = 0; stripe <= mask; stripe++) {
+                total += pending.getAndSet(stripe * PAD, 0);
+            }
+            return total;
+        }
+
+        private long takeUpTo(int stripe, long wanted) {
+            int index = stripe * PAD;
+            while (true) {
+                long current = available.get(index);
+                if (current <= 0) {
+                    return 0;
+                }
+                long got = Math.min(current, wanted);
+                if (available.compareAndSet(index, current, current - got)) {
+                    return got;
+                }
+            }
+        }
+
+        private int homeStripe() {
+            long id = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+            return (int) (id >>> 32) & mask;
+        }
+    }
+}
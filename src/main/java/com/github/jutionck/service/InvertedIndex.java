@@ -0,0 +1,440 @@
+package com.github.jutionck.service;
+
+import com.github.jutionck.dto.response.ProductFacetRow;
+import com.github.jutionck.dto.response.ProductSearchRow;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Inverted index over the name, brand, category and description tokens of products.
+ * <p>
+ * Documents are numbered in the order they are added. Each posting list stores its ascending document
+ * numbers as varint-encoded gaps, each followed by one byte with the fields the token occurs in.
+ * Categories and brands keep ascending document lists of their own. A search merges the posting lists
+ * of its words and the lists of its category and brand, so its cost follows the number of postings it
+ * touches rather than the size of the catalog; only a search without words or filters visits every
+ * document.
+ * <p>
+ * Updating a product adds a new document and marks the old one deleted, so lists are only ever
+ * appended to. Once deleted documents make up a quarter of the index, it is compacted: live documents
+ * are renumbered and every list is rewritten without the deleted ones.
+ * <p>
+ * Not thread-safe, {@link ProductSearchIndex} guards it.
+ */
+final class InvertedIndex {
+    static final int NAME = 1;
+    static final int BRAND = 2;
+    static final int CATEGORY = 4;
+    static final int DESCRIPTION = 8;
+
+    private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+    private final Map<UUID, Integer> documents = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private int deletedCount;
+
+    // Ascending document numbers per lower-cased category and brand
+    private final Map<String, IntList> byCategory = new HashMap<>();
+    private final Map<String, IntList> byBrand = new HashMap<>();
+
+    // Per document, indexed by document number. Categories and brands keep their case for facets
+    private final List<UUID> productIds = new ArrayList<>();
+    private final List<String> categories = new ArrayList<>();
+    private final List<String> brands = new ArrayList<>();
+    private final List<BigDecimal> prices = new ArrayList<>();
+
+    /**
+     * Lower-cased words of {@code text}, split on anything but letters and digits like the database search.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+
+        // A single pass instead of a regex split, tokenizing dominates the time to build the index
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                token.appendCodePoint(Character.toLowerCase(codePoint));
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (!token.isEmpty()) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+
+    void add(ProductSearchRow row) {
+        remove(row.id());
+
+        int document = productIds.size();
+        productIds.add(row.id());
+        categories.add(row.category());
+        brands.add(row.brand());
+        prices.add(row.price());
+        documents.put(row.id(), document);
+        addTo(byCategory, row.category(), document);
+        addTo(byBrand, row.brand(), document);
+
+        Map<String, Integer> fields = new HashMap<>();
+        collect(row.name(), NAME, fields);
+        collect(row.brand(), BRAND, fields);
+        collect(row.category(), CATEGORY, fields);
+        collect(row.description(), DESCRIPTION, fields);
+        fields.forEach((token, mask) -> postings.computeIfAbsent(token, t -> new PostingList()).add(document, mask));
+    }
+
+    void remove(UUID productId) {
+        Integer document = documents.remove(productId);
+        if (document != null) {
+            deleted.set(document);
+            deletedCount++;
+            categories.set(document, null);
+            brands.set(document, null);
+            prices.set(document, null);
+            if (deletedCount * 4L > productIds.size()) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * Documents matching every word as a token prefix and all given filters, best match first. A word
+     * scores the weight of the best field it matched in; a document's score is the sum over the words.
+     * Without words every live document passing the filters matches, in the order they were added.
+     */
+    int[] search(List<String> words, String category, String brand, BigDecimal minPrice, BigDecimal maxPrice) {
+        // Candidates in ascending document order, narrowed list by list; null while unrestricted
+        int[] candidates = null;
+        int[] scores = null;
+        if (category != null) {
+            candidates = listOf(byCategory, category);
+        }
+        if (brand != null) {
+            candidates = intersect(candidates, listOf(byBrand, brand));
+        }
+        for (String word : words) {
+            long[] hits = matchWord(word);
+            int count = 0;
+            int[] narrowed = new int[hits.length];
+            int[] summed = new int[hits.length];
+            int c = 0;
+            for (long match : hits) {
+                int document = (int) (match >>> 8);
+                if (candidates != null) {
+                    while (c < candidates.length && candidates[c] < document) {
+                        c++;
+                    }
+                    if (c == candidates.length) {
+                        break;
+                    }
+                    if (candidates[c] != document) {
+                        continue;
+                    }
+                }
+                narrowed[count] = document;
+                summed[count++] = (int) (match & 0xFF) + (scores != null ? scores[c] : 0);
+            }
+            candidates = Arrays.copyOf(narrowed, count);
+            scores = Arrays.copyOf(summed, count);
+        }
+
+        int size = candidates != null ? candidates.length : productIds.size();
+        long[] keys = new long[size];
+        int matches = 0;
+        for (int i = 0; i < size; i++) {
+            int document = candidates != null ? candidates[i] : i;
+            if (deleted.get(document)
+                    || (minPrice != null && prices.get(document).compareTo(minPrice) < 0)
+                    || (maxPrice != null && prices.get(document).compareTo(maxPrice) > 0)) {
+                continue;
+            }
+            // Higher scores sort first, ties keep document order
+            long rank = scores != null ? Integer.MAX_VALUE - scores[i] : 0;
+            keys[matches++] = (rank << 32) | document;
+        }
+
+        Arrays.sort(keys, 0, matches);
+        int[] result = new int[matches];
+        for (int i = 0; i < matches; i++) {
+            result[i] = (int) keys[i];
+        }
+        return result;
+    }
+
+    /**
+     * Counts of the given documents per category, brand and price bucket, like the database facet query.
+     * A price falls in the bucket of the first bound above it, or after the last bound.
+     */
+    List<ProductFacetRow> countFacets(int[] documents, List<BigDecimal> priceBounds) {
+        Map<FacetGroup, Long> counts = new HashMap<>();
+        for (int document : documents) {
+            BigDecimal price = prices.get(document);
+            int bucket = 0;
+            while (bucket < priceBounds.size() && price.compareTo(priceBounds.get(bucket)) >= 0) {
+                bucket++;
+            }
+            counts.merge(new FacetGroup(categories.get(document), brands.get(document), bucket), 1L, Long::sum);
+        }
+
+        List<ProductFacetRow> rows = new ArrayList<>(counts.size());
+        counts.forEach((group, count) -> rows.add(
+                new ProductFacetRow(group.category(), group.brand(), group.priceBucket(), count)));
+        return rows;
+    }
+
+    UUID productId(int document) {
+        return productIds.get(document);
+    }
+
+    int documentCount() {
+        return documents.size();
+    }
+
+    int termCount() {
+        return postings.size();
+    }
+
+    long postingBytes() {
+        return postings.values().stream().mapToLong(PostingList::length).sum();
+    }
+
+    // Releases the spare capacity left by growing the lists while building
+    void trim() {
+        postings.values().forEach(PostingList::trim);
+    }
+
+    /**
+     * Documents with a token starting with {@code word}, ascending, as {@code document << 8 | weight} with
+     * the weight of the best field any of those tokens occurs in.
+     */
+    private long[] matchWord(String word) {
+        LongList entries = new LongList();
+        for (PostingList list : postings.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+            list.forEach((document, fields) -> entries.add((long) document << 8 | weight(fields)));
+        }
+
+        long[] sorted = entries.toArray();
+        Arrays.sort(sorted);
+        // Entries of one document are adjacent with the best weight last
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i + 1 == sorted.length || sorted[i + 1] >>> 8 != sorted[i] >>> 8) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+
+    private static int[] listOf(Map<String, IntList> lists, String key) {
+        IntList list = lists.get(key);
+        return list != null ? list.toArray() : new int[0];
+    }
+
+    // Both ascending; null stands for every document
+    private static int[] intersect(int[] left, int[] right) {
+        if (left == null) {
+            return right;
+        }
+        int[] result = new int[Math.min(left.length, right.length)];
+        int count = 0;
+        for (int l = 0, r = 0; l < left.length && r < right.length; ) {
+            if (left[l] < right[r]) {
+                l++;
+            } else if (left[l] > right[r]) {
+                r++;
+            } else {
+                result[count++] = left[l];
+                l++;
+                r++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static void addTo(Map<String, IntList> lists, String key, int document) {
+        if (key != null) {
+            lists.computeIfAbsent(key.toLowerCase(Locale.ROOT), k -> new IntList()).add(document);
+        }
+    }
+
+    /**
+     * Renumbers the live documents densely and rewrites every list without the deleted ones. Lists keep
+     * ascending order because renumbering keeps the relative order of documents.
+     */
+    private void compact() {
+        int size = productIds.size();
+        int[] renumbered = new int[size];
+        List<UUID> liveIds = new ArrayList<>();
+        List<String> liveCategories = new ArrayList<>();
+        List<String> liveBrands = new ArrayList<>();
+        List<BigDecimal> livePrices = new ArrayList<>();
+        for (int document = 0; document < size; document++) {
+            if (deleted.get(document)) {
+                renumbered[document] = -1;
+                continue;
+            }
+            renumbered[document] = liveIds.size();
+            liveIds.add(productIds.get(document));
+            liveCategories.add(categories.get(document));
+            liveBrands.add(brands.get(document));
+            livePrices.add(prices.get(document));
+        }
+
+        postings.entrySet().removeIf(entry -> {
+            PostingList compacted = new PostingList();
+            entry.getValue().forEach((document, fields) -> {
+                if (renumbered[document] >= 0) {
+                    compacted.add(renumbered[document], fields);
+                }
+            });
+            compacted.trim();
+            entry.setValue(compacted);
+            return compacted.length() == 0;
+        });
+
+        productIds.clear();
+        productIds.addAll(liveIds);
+        categories.clear();
+        categories.addAll(liveCategories);
+        brands.clear();
+        brands.addAll(liveBrands);
+        prices.clear();
+        prices.addAll(livePrices);
+        documents.replaceAll((productId, document) -> renumbered[document]);
+        deleted.clear();
+        deletedCount = 0;
+
+        byCategory.clear();
+        byBrand.clear();
+        for (int document = 0; document < productIds.size(); document++) {
+            addTo(byCategory, categories.get(document), document);
+            addTo(byBrand, brands.get(document), document);
+        }
+    }
+
+    // A word in the name counts most, then brand and category, then the description
+    private static int weight(int fields) {
+        if ((fields & NAME) != 0) {
+            return 8;
+        }
+        if ((fields & (BRAND | CATEGORY)) != 0) {
+            return 4;
+        }
+        return 1;
+    }
+
+    private static void collect(String text, int field, Map<String, Integer> fields) {
+        for (String token : tokenize(text)) {
+            fields.merge(token, field, (a, b) -> a | b);
+        }
+    }
+
+    private record FacetGroup(String category, String brand, int priceBucket) {
+    }
+
+    // Growable primitive lists, so document numbers are not boxed
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private static final class LongList {
+        private long[] values = new long[16];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    @FunctionalInterface
+    interface PostingVisitor {
+        void visit(int document, int fields);
+    }
+
+    /**
+     * Ascending document numbers as varint gaps, each followed by a byte of field flags.
+     */
+    static final class PostingList {
+        private byte[] data = new byte[4];
+        private int length;
+        private int lastDocument;
+
+        void add(int document, int fields) {
+            ensureCapacity(6);
+            int gap = document - lastDocument;
+            while ((gap & ~0x7F) != 0) {
+                data[length++] = (byte) ((gap & 0x7F) | 0x80);
+                gap >>>= 7;
+            }
+            data[length++] = (byte) gap;
+            data[length++] = (byte) fields;
+            lastDocument = document;
+        }
+
+        void forEach(PostingVisitor visitor) {
+            int document = 0;
+            int position = 0;
+            while (position < length) {
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[position++];
+                    gap |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                document += gap;
+                visitor.visit(document, data[position++]);
+            }
+        }
+
+        int length() {
+            return length;
+        }
+
+        void trim() {
+            data = Arrays.copyOf(data, length);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+            }
+        }
+    }
+}
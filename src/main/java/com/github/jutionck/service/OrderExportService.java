@@ -0,0 +1,164 @@
+package com.github.jutionck.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.jutionck.dto.response.OrderExportRow;
+import com.github.jutionck.enums.ExportFormat;
+import com.github.jutionck.exceptions.ValidationException;
+import com.github.jutionck.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams orders created in a date range as CSV or NDJSON.
+ * <p>
+ * Rows come from a server-side cursor as {@link OrderExportRow} projections and are written to the
+ * response as they arrive, flushed every {@code order.export.flush-rows} rows. Nothing is collected in
+ * memory, so heap use does not depend on the size of the export.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderExportService {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "id,order_number,created_at,customer_email,status,payment_method," +
+            "payment_status,subtotal,discount,shipping,tax,total,voucher_code,referral_code";
+
+    private final OrderRepository orderRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${order.export.flush-rows:1000}")
+    private int flushRows;
+
+    @Value("${order.export.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    /**
+     * Checks the request up front so a bad range is still reported as a normal error response, and
+     * returns the body that runs the export once the response is committed. Both dates are inclusive.
+     */
+    public StreamingResponseBody exportOrders(LocalDate from, LocalDate to, ExportFormat format) {
+        if (from.isAfter(to)) {
+            throw new ValidationException("'from' must not be after 'to'");
+        }
+
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        return out -> readOnlyTransaction().executeWithoutResult(tx -> {
+            try (Stream<OrderExportRow> rows = orderRepository.streamForExport(start, end)) {
+                long written = write(rows.iterator(), format, out);
+                log.info("Exported {} order(s) created between {} and {} as {}", written, from, to, format);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public String fileName(LocalDate from, LocalDate to, ExportFormat format) {
+        return "orders-" + from + "-" + to + "." + format.getExtension();
+    }
+
+    // A large export can take minutes, far longer than other async requests are allowed
+    public long timeoutMillis() {
+        return timeoutMillis;
+    }
+
+    private long write(Iterator<OrderExportRow> rows, ExportFormat format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        return format == ExportFormat.CSV ? writeCsv(rows, writer) : writeNdjson(rows, writer);
+    }
+
+    private long writeCsv(Iterator<OrderExportRow> rows, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+
+        long count = 0;
+        while (rows.hasNext()) {
+            OrderExportRow row = rows.next();
+            writer.write(String.join(",",
+                    String.valueOf(row.id()),
+                    csv(row.orderNumber()),
+                    String.valueOf(row.createdAt()),
+                    csv(row.customerEmail()),
+                    String.valueOf(row.status()),
+                    csv(row.paymentMethod()),
+                    csv(row.paymentStatus()),
+                    csv(row.subtotal()),
+                    csv(row.discount()),
+                    csv(row.shipping()),
+                    csv(row.tax()),
+                    csv(row.total()),
+                    csv(row.voucherCode()),
+                    csv(row.referralCode())));
+            writer.write('\n');
+
+            if (++count % flushRows == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private long writeNdjson(Iterator<OrderExportRow> rows, Writer writer) throws IOException {
+        // Flushing is left to us, otherwise every row would be sent on its own
+        ObjectWriter rowWriter = objectMapper.writerFor(OrderExportRow.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null)) {
+            while (rows.hasNext()) {
+                rowWriter.writeValue(generator, rows.next());
+                generator.writeRaw('\n');
+
+                if (++count % flushRows == 0) {
+                    generator.flush();
+                }
+            }
+        }
+        return count;
+    }
+
+    private String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (value instanceof String && !text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+            // Spreadsheets would run user-supplied text such as an email or voucher code as a formula
+            text = "'" + text;
+        }
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+}
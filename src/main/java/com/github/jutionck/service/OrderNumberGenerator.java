@@ -0,0 +1,9 @@
+package com.github.jutionck.service;
+
+/**
+ * Produces the human-facing {@code orderNumber} of new orders. Implementations must be thread-safe and
+ * never hand out the same number twice.
+ */
+public interface OrderNumberGenerator {
+    String nextOrderNumber();
+}
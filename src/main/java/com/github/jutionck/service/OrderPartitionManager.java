@@ -0,0 +1,215 @@
+package com.github.jutionck.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps {@code orders} and {@code order_items} range partitioned by month on {@code created_at}.
+ * <p>
+ * Off unless {@code order.partitioning.enabled} is set. On startup the tables Hibernate created are then
+ * rebuilt as partitioned tables, keeping any rows they already hold. The conversion and all partition
+ * maintenance run under a transaction-scoped advisory lock, so instances starting together convert the
+ * tables once and the others wait and skip it. A failed conversion rolls back and leaves the plain tables
+ * in place rather than stopping the application.
+ * <p>
+ * The primary keys become {@code (id, created_at)} and order items reference their order through
+ * {@code (order_id, created_at)}, because PostgreSQL only allows unique keys that contain the partition
+ * key. Order numbers stay globally unique through {@code order_numbers}, a plain table keyed on the number
+ * that a trigger fills on every insert into {@code orders}. Partitions are created
+ * {@code order.partitioning.months-ahead} months in advance by a daily job. Queries bounded on
+ * {@code created_at} only scan the matching months.
+ * <p>
+ * Once every order in a month older than {@code order.archive.after-months} is delivered or cancelled,
+ * that month's partitions move to the archive schema, and to the archive tablespace if one is set. They
+ * stay attached, so the existing queries still read archived orders.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderPartitionManager implements SmartInitializingSingleton {
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("'p'yyyy_MM");
+    private static final Pattern PARTITION_NAME = Pattern.compile("orders_p(\\d{4})_(\\d{2})");
+    // Arbitrary application-wide key of the advisory lock taken around every schema change
+    private static final long PARTITIONING_LOCK = 0x0DE2_5A27L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${order.partitioning.enabled:false}")
+    private boolean enabled;
+
+    @Value("${order.partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${order.archive.after-months:12}")
+    private int archiveAfterMonths;
+
+    @Value("${order.archive.schema:archive}")
+    private String archiveSchema;
+
+    @Value("${order.archive.tablespace:}")
+    private String archiveTablespace;
+
+    // Runs once the schema exists and before the web server takes requests
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            locked(() -> {
+                if (!isPartitioned()) {
+                    partitionTables();
+                }
+                createPartitions(YearMonth.now(), YearMonth.now().plusMonths(monthsAhead));
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to partition orders, they stay in unpartitioned tables: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${order.partitioning.maintenance-cron:0 0 3 * * *}")
+    public void maintain() {
+        if (!enabled || !isPartitioned()) {
+            return;
+        }
+        locked(() -> createPartitions(YearMonth.now(), YearMonth.now().plusMonths(monthsAhead)));
+        archivePartitions(YearMonth.now().minusMonths(archiveAfterMonths));
+    }
+
+    // Serializes schema changes across instances; the lock is released when the transaction ends
+    private void locked(Runnable work) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            jdbcTemplate.execute("SELECT pg_advisory_xact_lock(" + PARTITIONING_LOCK + ")");
+            work.run();
+        });
+    }
+
+    private boolean isPartitioned() {
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass('orders'))",
+                Boolean.class);
+        return Boolean.TRUE.equals(partitioned);
+    }
+
+    private void partitionTables() {
+        // Foreign keys into orders are rebuilt against the new composite key below
+        for (String constraint : jdbcTemplate.queryForList(
+                "SELECT conname FROM pg_constraint " +
+                "WHERE conrelid = 'order_sellers'::regclass AND confrelid = 'orders'::regclass", String.class)) {
+            jdbcTemplate.execute("ALTER TABLE order_sellers DROP CONSTRAINT " + constraint);
+        }
+
+        jdbcTemplate.execute("ALTER TABLE order_items RENAME TO order_items_unpartitioned");
+        jdbcTemplate.execute("ALTER TABLE orders RENAME TO orders_unpartitioned");
+        jdbcTemplate.execute("CREATE TABLE orders (LIKE orders_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS) " +
+                "PARTITION BY RANGE (created_at)");
+        jdbcTemplate.execute("CREATE TABLE order_items (LIKE order_items_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS) " +
+                "PARTITION BY RANGE (created_at)");
+
+        // Every existing row needs a partition before it can be copied over
+        LocalDateTime oldest = jdbcTemplate.queryForObject("SELECT MIN(created_at) FROM orders_unpartitioned", LocalDateTime.class);
+        createPartitions(oldest != null ? YearMonth.from(oldest) : YearMonth.now(), YearMonth.now());
+
+        jdbcTemplate.execute("INSERT INTO orders SELECT * FROM orders_unpartitioned");
+        jdbcTemplate.execute("INSERT INTO order_items SELECT * FROM order_items_unpartitioned");
+        jdbcTemplate.execute("DROP TABLE order_items_unpartitioned");
+        jdbcTemplate.execute("DROP TABLE orders_unpartitioned");
+
+        // Unique keys must include the partition key, so order numbers are kept unique in a table of their own
+        jdbcTemplate.execute("ALTER TABLE orders ADD CONSTRAINT orders_pkey PRIMARY KEY (id, created_at)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS order_numbers (order_number varchar(255) PRIMARY KEY)");
+        jdbcTemplate.execute("INSERT INTO order_numbers SELECT order_number FROM orders ON CONFLICT DO NOTHING");
+        jdbcTemplate.execute("CREATE OR REPLACE FUNCTION claim_order_number() RETURNS trigger LANGUAGE plpgsql AS " +
+                "$$ BEGIN INSERT INTO order_numbers (order_number) VALUES (NEW.order_number); RETURN NEW; END $$");
+        jdbcTemplate.execute("CREATE TRIGGER trg_orders_claim_order_number AFTER INSERT ON orders " +
+                "FOR EACH ROW EXECUTE FUNCTION claim_order_number()");
+        jdbcTemplate.execute("ALTER TABLE orders ADD CONSTRAINT fk_orders_customer FOREIGN KEY (customer_id) REFERENCES users (id)");
+        jdbcTemplate.execute("CREATE INDEX idx_orders_created_at_id ON orders (created_at, id)");
+        jdbcTemplate.execute("CREATE INDEX idx_orders_customer_created_at_id ON orders (customer_id, created_at, id)");
+        jdbcTemplate.execute("CREATE INDEX idx_orders_status_created_at_id ON orders (status, created_at, id)");
+        jdbcTemplate.execute("CREATE INDEX idx_orders_payment_status_created_at_id ON orders (payment_status, created_at, id)");
+        jdbcTemplate.execute("CREATE INDEX idx_orders_order_number_pattern ON orders (order_number text_pattern_ops)");
+
+        jdbcTemplate.execute("ALTER TABLE order_items ADD CONSTRAINT order_items_pkey PRIMARY KEY (id, created_at)");
+        jdbcTemplate.execute("ALTER TABLE order_items ADD CONSTRAINT fk_order_items_order " +
+                "FOREIGN KEY (order_id, created_at) REFERENCES orders (id, created_at)");
+        jdbcTemplate.execute("ALTER TABLE order_items ADD CONSTRAINT fk_order_items_product FOREIGN KEY (product_id) REFERENCES products (id)");
+        jdbcTemplate.execute("CREATE INDEX idx_order_items_order ON order_items (order_id)");
+
+        // order_sellers.created_at is copied from the order, so it can reference the composite key too
+        jdbcTemplate.execute("ALTER TABLE order_sellers ADD CONSTRAINT fk_order_sellers_order " +
+                "FOREIGN KEY (order_id, created_at) REFERENCES orders (id, created_at)");
+
+        log.info("Converted orders and order_items to monthly partitions");
+    }
+
+    void createPartitions(YearMonth from, YearMonth to) {
+        for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+            String suffix = month.format(SUFFIX);
+            LocalDate start = month.atDay(1);
+            LocalDate end = month.plusMonths(1).atDay(1);
+            for (String table : List.of("orders", "order_items")) {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + "_" + suffix + " PARTITION OF " + table +
+                        " FOR VALUES FROM ('" + start + "') TO ('" + end + "')");
+            }
+        }
+    }
+
+    private void archivePartitions(YearMonth olderThan) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_namespace n ON n.oid = c.relnamespace " +
+                "WHERE i.inhparent = 'orders'::regclass AND n.nspname <> ?", String.class, archiveSchema);
+
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (!month.isBefore(olderThan)) {
+                continue;
+            }
+
+            Boolean open = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + partition +
+                    " WHERE status NOT IN ('DELIVERED', 'CANCELLED'))", Boolean.class);
+            if (Boolean.TRUE.equals(open)) {
+                log.warn("Partition {} still has open orders, not archiving it", partition);
+                continue;
+            }
+
+            locked(() -> archive(month.format(SUFFIX)));
+            log.info("Archived order partitions for {}", month);
+        }
+    }
+
+    private void archive(String suffix) {
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + archiveSchema);
+        for (String table : List.of("orders_" + suffix, "order_items_" + suffix)) {
+            if (!archiveTablespace.isBlank()) {
+                jdbcTemplate.execute("ALTER TABLE " + table + " SET TABLESPACE " + archiveTablespace);
+                for (String index : jdbcTemplate.queryForList(
+                        "SELECT indexrelid::regclass::text FROM pg_index WHERE indrelid = ?::regclass", String.class, table)) {
+                    jdbcTemplate.execute("ALTER INDEX " + index + " SET TABLESPACE " + archiveTablespace);
+                }
+            }
+            jdbcTemplate.execute("ALTER TABLE " + table + " SET SCHEMA " + archiveSchema);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.jutionck.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.jutionck.repository.OrderSellerRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Remembers which sellers have products in an order, so authorizing a seller on an order does not hit
+ * {@code order_sellers} on every request.
+ * <p>
+ * Entries are added when an order is created and loaded from the database on a miss. The sellers of an
+ * order never change after checkout, so entries are only dropped by size and TTL. Hits and misses are
+ * published as the {@code cache.gets} metric with {@code cache=order-sellers}.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderSellerCache {
+    private final OrderSellerRepository orderSellerRepository;
+    private final MeterRegistry meterRegistry;
+
+    private Cache<UUID, Set<UUID>> sellersByOrder;
+
+    @Value("${order.seller-cache.max-size:100000}")
+    private long maxSize;
+
+    @Value("${order.seller-cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    @PostConstruct
+    void initCache() {
+        sellersByOrder = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, sellersByOrder, "order-sellers");
+    }
+
+    public boolean isSeller(UUID orderId, UUID sellerId) {
+        return getSellers(orderId).contains(sellerId);
+    }
+
+    public Set<UUID> getSellers(UUID orderId) {
+        // Unknown orders load as null and are not cached
+        Set<UUID> sellers = sellersByOrder.get(orderId, this::loadSellers);
+        return sellers != null ? sellers : Set.of();
+    }
+
+    /**
+     * Caches the sellers of a newly created order once the surrounding transaction commits.
+     */
+    public void remember(UUID orderId, Set<UUID> sellerIds) {
+        Set<UUID> sellers = Set.copyOf(sellerIds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            sellersByOrder.put(orderId, sellers);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                sellersByOrder.put(orderId, sellers);
+            }
+        });
+    }
+
+    private Set<UUID> loadSellers(UUID orderId) {
+        Set<UUID> sellers = orderSellerRepository.findSellerIdsByOrderId(orderId);
+        return sellers.isEmpty() ? null : Set.copyOf(sellers);
+    }
+}
@@ -1,30 +1,51 @@
 package com.github.jutionck.service;
 
+import com.github.jutionck.dto.request.BatchUpdateOrderStatusRequest;
+import com.github.jutionck.dto.request.CheckoutCartRequest;
 import com.github.jutionck.dto.request.CreateOrderRequest;
+import com.github.jutionck.dto.request.OrderSearchRequest;
 import com.github.jutionck.dto.request.UpdateOrderStatusRequest;
+import com.github.jutionck.dto.response.BatchOrderResponse;
+import com.github.jutionck.dto.response.BatchOrderStatusResponse;
+import com.github.jutionck.dto.response.CursorPage;
 import com.github.jutionck.dto.response.OrderResponse;
+import com.github.jutionck.dto.response.OrderStatusEvent;
 import com.github.jutionck.entity.*;
 import com.github.jutionck.enums.OrderStatus;
 import com.github.jutionck.enums.PaymentStatus;
 import com.github.jutionck.enums.UserRole;
-import com.github.jutionck.enums.VoucherType;
 import com.github.jutionck.exceptions.ResourceNotFoundException;
 import com.github.jutionck.exceptions.UnauthorizedException;
 import com.github.jutionck.exceptions.ValidationException;
 import com.github.jutionck.repository.*;
+import com.github.jutionck.utils.CursorUtil;
+import com.github.jutionck.utils.UuidUtil;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -32,108 +53,282 @@ import java.util.UUID;
 @Transactional(readOnly = true)
 public class OrderService {
     private final OrderRepository orderRepository;
+    private final OrderSellerRepository orderSellerRepository;
     private final OrderItemRepository orderItemRepository;
+    private final VoucherRedemptionRepository voucherRedemptionRepository;
     private final ProductRepository productRepository;
     private final VoucherRepository voucherRepository;
-    private final ReferralCodeRepository referralCodeRepository;
+    private final ReferralService referralService;
+    private final InventoryLedger inventoryLedger;
+    private final VoucherRedemptionService voucherRedemptionService;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final PricingEngine pricingEngine;
+    private final OrderSellerCache orderSellerCache;
+    private final ProductDetailCache productDetailCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public OrderResponse createOrder(CreateOrderRequest request, User customer) {
         log.info("Creating order for customer: {}", customer.getEmail());
 
-        // Validate and prepare order items
-        List<OrderItem> orderItems = new ArrayList<>();
-        BigDecimal subtotal = BigDecimal.ZERO;
+        // Reserve stock for the whole cart before pricing it
+        Map<UUID, Product> products = reserveStock(request.getItems());
 
-        for (CreateOrderRequest.OrderItemRequest itemRequest : request.getItems()) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
+        List<OrderItem> orderItems = buildOrderItems(request, products);
+        long subtotal = sumSubtotals(orderItems);
+        String orderNumber = orderNumberGenerator.nextOrderNumber();
 
-            // Check stock
-            if (product.getStock() < itemRequest.getQuantity()) {
-                throw new ValidationException("Insufficient stock for product: " + product.getName());
-            }
+        // Calculate discount and redeem the voucher if provided
+        long discount = 0;
+        if (hasText(request.getVoucherCode())) {
+            Voucher voucher = voucherRepository.findByCode(request.getVoucherCode())
+                    .orElseThrow(() -> new ResourceNotFoundException("Voucher not found"));
+
+            discount = calculateVoucherDiscount(voucher, subtotal);
+            voucherRedemptionService.redeem(voucher, customer, orderNumber);
+        }
 
-            BigDecimal itemPrice = product.getPrice();
-            BigDecimal itemSubtotal = itemPrice.multiply(BigDecimal.valueOf(itemRequest.getQuantity()));
-            subtotal = subtotal.add(itemSubtotal);
+        // Order items are saved together with the order, the snapshot goes into the same INSERT
+        Order order = buildOrder(request, customer, orderNumber, orderItems, subtotal, discount);
+        writeSnapshot(order);
+        orderRepository.save(order);
+        saveOrderSellers(List.of(order));
 
-            OrderItem orderItem = OrderItem.builder()
-                    .product(product)
-                    .quantity(itemRequest.getQuantity())
-                    .price(itemPrice)
-                    .subtotal(itemSubtotal)
-                    .build();
+        // Credit the referral code if used
+        if (hasText(request.getReferralCode())) {
+            referralService.recordCredit(request.getReferralCode(), order.getOrderNumber());
+        }
+
+        log.info("Order created successfully: {}", order.getOrderNumber());
+        return toResponse(order);
+    }
 
-            orderItems.add(orderItem);
+    /**
+     * Prices a cart without reserving anything. Products that do not exist are left out, and a voucher
+     * that cannot be applied is reported on the quote instead of failing it.
+     */
+    public CartQuote quoteCart(Map<UUID, Integer> quantities, String voucherCode) {
+        Map<UUID, Product> products = productRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
 
-            // Reduce stock
-            product.setStock(product.getStock() - itemRequest.getQuantity());
-            productRepository.save(product);
+        List<CartQuote.Line> lines = new ArrayList<>();
+        long subtotal = 0;
+        for (Map.Entry<UUID, Integer> entry : quantities.entrySet()) {
+            Product product = products.get(entry.getKey());
+            if (product == null) {
+                continue;
+            }
+            long unitPrice = PricingEngine.toCents(product.getPrice());
+            long lineTotal = pricingEngine.lineTotal(unitPrice, entry.getValue());
+            int stock = inventoryLedger.availableStock(product.getId(), product.getStock());
+            lines.add(new CartQuote.Line(
+                    product.getId(), product.getName(), entry.getValue(), unitPrice, lineTotal, stock >= entry.getValue()));
+            subtotal = Math.addExact(subtotal, lineTotal);
         }
 
-        // Calculate discount if voucher provided
-        BigDecimal discount = BigDecimal.ZERO;
-        if (request.getVoucherCode() != null && !request.getVoucherCode().isEmpty()) {
-            Voucher voucher = voucherRepository.findByCode(request.getVoucherCode())
-                    .orElseThrow(() -> new ResourceNotFoundException("Voucher not found"));
+        long discount = 0;
+        UUID voucherId = null;
+        LocalDateTime voucherValidUntil = null;
+        String voucherError = null;
+        if (hasText(voucherCode)) {
+            try {
+                Voucher voucher = voucherRepository.findByCode(voucherCode)
+                        .orElseThrow(() -> new ResourceNotFoundException("Voucher not found"));
+                discount = calculateVoucherDiscount(voucher, subtotal);
+                voucherId = voucher.getId();
+                voucherValidUntil = voucher.getEndDate();
+            } catch (ValidationException | ResourceNotFoundException e) {
+                voucherError = e.getMessage();
+            }
+        }
 
-            discount = calculateVoucherDiscount(voucher, subtotal);
+        return new CartQuote(lines, voucherId, voucherCode, voucherValidUntil, voucherError,
+                pricingEngine.price(subtotal, discount));
+    }
+
+    /**
+     * Creates an order at the prices of a cart quote. Only stock and the voucher redemption are checked
+     * again; the caller is responsible for the quote still being current.
+     */
+    @Transactional
+    public OrderResponse createOrderFromQuote(CartQuote quote, CheckoutCartRequest request, User customer) {
+        log.info("Creating order from cart for customer: {}", customer.getEmail());
+
+        List<CreateOrderRequest.OrderItemRequest> items = quote.lines().stream()
+                .map(line -> CreateOrderRequest.OrderItemRequest.builder()
+                        .productId(line.productId())
+                        .quantity(line.quantity())
+                        .build())
+                .toList();
+        Map<UUID, Product> products = reserveStock(items);
+
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (CartQuote.Line line : quote.lines()) {
+            orderItems.add(OrderItem.builder()
+                    .product(products.get(line.productId()))
+                    .quantity(line.quantity())
+                    .price(PricingEngine.toAmount(line.unitPrice()))
+                    .subtotal(PricingEngine.toAmount(line.lineTotal()))
+                    .build());
         }
+        String orderNumber = orderNumberGenerator.nextOrderNumber();
 
-        // Calculate shipping, tax, and total
-        BigDecimal shipping = calculateShipping(subtotal, discount);
-        BigDecimal tax = calculateTax(subtotal.subtract(discount));
-        BigDecimal total = subtotal.subtract(discount).add(shipping).add(tax);
+        if (quote.voucherId() != null) {
+            if (LocalDateTime.now().isAfter(quote.voucherValidUntil())) {
+                throw new ValidationException("Voucher is expired or not yet valid");
+            }
+            voucherRedemptionService.redeem(quote.voucherId(), quote.voucherCode(), customer, orderNumber);
+        }
 
-        // Create order
-        Order order = Order.builder()
-                .orderNumber(generateOrderNumber())
-                .customer(customer)
-                .status(OrderStatus.PENDING)
-                .subtotal(subtotal)
-                .discount(discount)
-                .shipping(shipping)
-                .tax(tax)
-                .total(total)
+        CreateOrderRequest orderRequest = CreateOrderRequest.builder()
+                .items(items)
                 .shippingAddress(request.getShippingAddress())
                 .paymentMethod(request.getPaymentMethod())
-                .voucherCode(request.getVoucherCode())
+                .voucherCode(quote.voucherId() != null ? quote.voucherCode() : null)
                 .referralCode(request.getReferralCode())
                 .notes(request.getNotes())
                 .build();
+        Order order = buildOrder(
+                orderRequest, customer, orderNumber, orderItems, quote.totals().subtotal(), quote.totals().discount());
+        writeSnapshot(order);
+        orderRepository.save(order);
+        saveOrderSellers(List.of(order));
 
-        order = orderRepository.save(order);
+        if (hasText(request.getReferralCode())) {
+            referralService.recordCredit(request.getReferralCode(), order.getOrderNumber());
+        }
 
-        // Save order items
-        Order finalOrder = order;
-        orderItems.forEach(item -> {
-            item.setOrder(finalOrder);
-            orderItemRepository.save(item);
-        });
+        log.info("Order created successfully from cart: {}", order.getOrderNumber());
+        return toResponse(order);
+    }
 
-        // Update voucher usage if used
-        if (request.getVoucherCode() != null) {
-            voucherRepository.findByCode(request.getVoucherCode()).ifPresent(voucher -> {
-                voucher.setUsageCount(voucher.getUsageCount() + 1);
-                voucherRepository.save(voucher);
-            });
+    /**
+     * Creates many orders for one customer in a single transaction. Products and vouchers for the whole
+     * batch are loaded and locked with one query each, every order is validated and priced in memory, and
+     * the accepted orders, items and voucher redemptions are written with JDBC batching. An order that
+     * fails validation is reported in the result and does not affect the others.
+     */
+    @Transactional
+    public BatchOrderResponse createOrders(List<CreateOrderRequest> requests, User customer) {
+        log.info("Creating batch of {} orders for customer: {}", requests.size(), customer.getEmail());
+
+        Set<UUID> productIds = requests.stream()
+                .flatMap(request -> request.getItems().stream())
+                .map(CreateOrderRequest.OrderItemRequest::getProductId)
+                .collect(Collectors.toSet());
+        Map<UUID, Product> products = productRepository.findAllByIdInForUpdate(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        Set<String> voucherCodes = requests.stream()
+                .map(CreateOrderRequest::getVoucherCode)
+                .filter(this::hasText)
+                .collect(Collectors.toSet());
+        Map<String, Voucher> vouchers = new HashMap<>();
+        Map<UUID, Long> customerRedemptions = new HashMap<>();
+        if (!voucherCodes.isEmpty()) {
+            voucherRepository.findAllByCodeInForUpdate(voucherCodes)
+                    .forEach(voucher -> vouchers.put(voucher.getCode(), voucher));
+            for (Object[] row : voucherRedemptionRepository.countByUserGroupedByVoucher(
+                    customer.getId(), vouchers.values().stream().map(Voucher::getId).toList())) {
+                customerRedemptions.put((UUID) row[0], (Long) row[1]);
+            }
         }
 
-        // Update referral code if used
-        if (request.getReferralCode() != null) {
-            referralCodeRepository.findByCode(request.getReferralCode()).ifPresent(referralCode -> {
-                referralCode.setUsageCount(referralCode.getUsageCount() + 1);
-                referralCode.setTotalEarnings(
-                        referralCode.getTotalEarnings().add(referralCode.getRewardAmount())
-                );
-                referralCodeRepository.save(referralCode);
-            });
+        List<Order> orders = new ArrayList<>();
+        List<VoucherRedemption> redemptions = new ArrayList<>();
+        List<ReferralCredit> referralCredits = new ArrayList<>();
+        Map<Integer, Order> acceptedOrders = new HashMap<>();
+        Map<Integer, List<String>> rejectedOrders = new HashMap<>();
+
+        for (int index = 0; index < requests.size(); index++) {
+            CreateOrderRequest request = requests.get(index);
+            try {
+                Map<UUID, Integer> quantities = sumQuantities(request.getItems());
+                requireProducts(quantities, products);
+
+                List<OrderItem> orderItems = buildOrderItems(request, products);
+                long subtotal = sumSubtotals(orderItems);
+                String orderNumber = orderNumberGenerator.nextOrderNumber();
+
+                long discount = 0;
+                Voucher voucher = null;
+                if (hasText(request.getVoucherCode())) {
+                    voucher = vouchers.get(request.getVoucherCode());
+                    if (voucher == null) {
+                        throw new ResourceNotFoundException("Voucher not found");
+                    }
+                    discount = calculateVoucherDiscount(voucher, subtotal);
+                    if (voucher.getUserUsageLimit() != null &&
+                            customerRedemptions.getOrDefault(voucher.getId(), 0L) >= voucher.getUserUsageLimit()) {
+                        throw new ValidationException("Voucher usage limit reached");
+                    }
+                }
+
+                // Stock goes last: everything before it can fail without side effects
+                allocateLockedStock(quantities, products);
+
+                if (voucher != null) {
+                    // Counted in memory for the checks of later orders, written below in one update per voucher
+                    voucher.setUsageCount(voucher.getUsageCount() + 1);
+                    long redemptionNo = customerRedemptions.merge(voucher.getId(), 1L, Long::sum);
+                    redemptions.add(VoucherRedemption.builder()
+                            .voucher(voucher)
+                            .user(customer)
+                            .orderNumber(orderNumber)
+                            .redemptionNo((int) redemptionNo)
+                            .build());
+                }
+                if (hasText(request.getReferralCode())) {
+                    referralCredits.add(ReferralCredit.builder()
+                            .code(request.getReferralCode())
+                            .orderNumber(orderNumber)
+                            .build());
+                }
+
+                Order order = buildOrder(request, customer, orderNumber, orderItems, subtotal, discount);
+                orders.add(order);
+                acceptedOrders.put(index, order);
+            } catch (ValidationException e) {
+                rejectedOrders.put(index, e.getErrors());
+            } catch (ResourceNotFoundException e) {
+                rejectedOrders.put(index, List.of(e.getMessage()));
+            }
         }
 
-        order.setItems(orderItems);
-        log.info("Order created successfully: {}", order.getOrderNumber());
-        return mapToResponse(order);
+        orders.forEach(this::writeSnapshot);
+        orderRepository.saveAll(orders);
+        saveOrderSellers(orders);
+        voucherRedemptionRepository.saveAll(redemptions);
+        redemptions.stream()
+                .collect(Collectors.groupingBy(redemption -> redemption.getVoucher().getId(), Collectors.counting()))
+                .forEach((voucherId, count) -> voucherRepository.incrementUsageCount(voucherId, count.intValue()));
+        referralService.recordCredits(referralCredits);
+
+        List<BatchOrderResponse.OrderResult> results = new ArrayList<>();
+        for (int index = 0; index < requests.size(); index++) {
+            Order order = acceptedOrders.get(index);
+            results.add(order != null
+                    ? BatchOrderResponse.OrderResult.builder()
+                            .index(index)
+                            .success(true)
+                            .orderId(order.getId())
+                            .orderNumber(order.getOrderNumber())
+                            .total(order.getTotal())
+                            .build()
+                    : BatchOrderResponse.OrderResult.builder()
+                            .index(index)
+                            .success(false)
+                            .errors(rejectedOrders.get(index))
+                            .build());
+        }
+
+        log.info("Batch created {} of {} orders for customer: {}", orders.size(), requests.size(), customer.getEmail());
+        return BatchOrderResponse.builder()
+                .total(requests.size())
+                .succeeded(orders.size())
+                .failed(requests.size() - orders.size())
+                .results(results)
+                .build();
     }
 
     public OrderResponse getOrderById(UUID orderId, User user) {
@@ -146,22 +341,156 @@ public class OrderService {
             throw new UnauthorizedException("You don't have permission to view this order");
         }
 
-        return mapToResponse(order);
+        // Orders created before snapshots existed are still assembled from their rows
+        if (order.getSnapshot() == null) {
+            orderRepository.fetchItemsByIdIn(List.of(orderId));
+        }
+        return toResponse(order);
     }
 
     public Page<OrderResponse> getCustomerOrders(User customer, Pageable pageable) {
-        return orderRepository.findByCustomerId(customer.getId(), pageable)
-                .map(this::mapToResponse);
+        return mapPage(orderRepository.findByCustomerId(customer.getId(), pageable));
     }
 
     public Page<OrderResponse> getSellerOrders(User seller, Pageable pageable) {
-        return orderRepository.findOrdersBySellerId(seller.getId(), pageable)
-                .map(this::mapToResponse);
+        return mapPage(orderRepository.findOrdersBySellerId(seller.getId(), pageable));
     }
 
     public Page<OrderResponse> getAllOrders(Pageable pageable) {
-        return orderRepository.findAll(pageable)
-                .map(this::mapToResponse);
+        return mapPage(orderRepository.findAll(pageable));
+    }
+
+    /**
+     * Keyset variants of the order listings: newest first, continuing after {@code cursor} (or from the
+     * top when it is blank). No count query is run and the cost of a page does not grow with its depth.
+     */
+    public CursorPage<OrderResponse> getCustomerOrders(User customer, String cursor, int size) {
+        Limit limit = Limit.of(size + 1);
+        if (!hasText(cursor)) {
+            return mapCursorPage(orderRepository.findLatestByCustomerId(customer.getId(), limit), size);
+        }
+        CursorUtil.Cursor after = CursorUtil.decode(cursor);
+        return mapCursorPage(orderRepository.findLatestByCustomerIdAfter(
+                customer.getId(), after.createdAt(), after.id(), limit), size);
+    }
+
+    public CursorPage<OrderResponse> getSellerOrders(User seller, String cursor, int size) {
+        Limit limit = Limit.of(size + 1);
+        if (!hasText(cursor)) {
+            return mapCursorPage(orderRepository.findLatestBySellerId(seller.getId(), limit), size);
+        }
+        CursorUtil.Cursor after = CursorUtil.decode(cursor);
+        return mapCursorPage(orderRepository.findLatestBySellerIdAfter(
+                seller.getId(), after.createdAt(), after.id(), limit), size);
+    }
+
+    public CursorPage<OrderResponse> getAllOrders(String cursor, int size) {
+        Limit limit = Limit.of(size + 1);
+        if (!hasText(cursor)) {
+            return mapCursorPage(orderRepository.findLatest(limit), size);
+        }
+        CursorUtil.Cursor after = CursorUtil.decode(cursor);
+        return mapCursorPage(orderRepository.findLatestAfter(after.createdAt(), after.id(), limit), size);
+    }
+
+    /**
+     * Admin order search, newest first with keyset pagination. Every search must include a filter that
+     * has its own index (see {@link #requireIndexedFilter}); the other filters only narrow the rows that
+     * index returns.
+     */
+    public CursorPage<OrderResponse> searchOrders(OrderSearchRequest request, String cursor, int size) {
+        requireIndexedFilter(request);
+
+        Specification<Order> spec = Specification.where(null);
+
+        if (request.getStatus() != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("status"), request.getStatus()));
+        }
+        if (request.getPaymentStatus() != null) {
+            spec = spec.and((root, query, cb) -> cb.equal(root.get("paymentStatus"), request.getPaymentStatus()));
+        }
+        if (request.getFrom() != null) {
+            LocalDateTime start = request.getFrom().atStartOfDay();
+            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.<LocalDateTime>get("createdAt"), start));
+        }
+        if (request.getTo() != null) {
+            LocalDateTime end = request.getTo().plusDays(1).atStartOfDay();
+            spec = spec.and((root, query, cb) -> cb.lessThan(root.<LocalDateTime>get("createdAt"), end));
+        }
+        if (hasText(request.getCustomerEmail())) {
+            String email = request.getCustomerEmail().trim();
+            spec = spec.and((root, query, cb) -> {
+                // A subquery rather than a join, so the planner seeks the customer's index entries
+                Subquery<UUID> customerId = query.subquery(UUID.class);
+                Root<User> customer = customerId.from(User.class);
+                customerId.select(customer.get("id")).where(cb.equal(customer.get("email"), email));
+                return cb.equal(root.get("customer").get("id"), customerId);
+            });
+        }
+        if (hasText(request.getOrderNumber())) {
+            String prefix = escapeLike(request.getOrderNumber().trim().toUpperCase()) + "%";
+            spec = spec.and((root, query, cb) -> cb.like(root.get("orderNumber"), prefix, '\\'));
+        }
+        if (request.getMinTotal() != null) {
+            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.<BigDecimal>get("total"), request.getMinTotal()));
+        }
+        if (request.getMaxTotal() != null) {
+            spec = spec.and((root, query, cb) -> cb.lessThanOrEqualTo(root.<BigDecimal>get("total"), request.getMaxTotal()));
+        }
+        if (hasText(cursor)) {
+            // (createdAt, id) < cursor, with the createdAt bound on its own so the index can seek to it
+            CursorUtil.Cursor after = CursorUtil.decode(cursor);
+            spec = spec.and((root, query, cb) -> cb.and(
+                    cb.lessThanOrEqualTo(root.<LocalDateTime>get("createdAt"), after.createdAt()),
+                    cb.or(
+                            cb.lessThan(root.<LocalDateTime>get("createdAt"), after.createdAt()),
+                            cb.lessThan(root.<UUID>get("id"), after.id())
+                    )
+            ));
+        }
+
+        List<Order> orders = orderRepository.findBy(spec, query -> query
+                .sortBy(Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")))
+                .limit(size + 1)
+                .all());
+        return mapCursorPage(orders, size);
+    }
+
+    /**
+     * The accepted query shapes. A search must filter on at least one of
+     * <ul>
+     *     <li>order number prefix: {@code idx_orders_order_number_pattern}</li>
+     *     <li>customer email: the unique email of {@code users}, then {@code idx_orders_customer_created_at_id}</li>
+     *     <li>status: {@code idx_orders_status_created_at_id}</li>
+     *     <li>payment status: {@code idx_orders_payment_status_created_at_id}</li>
+     *     <li>date range: {@code idx_orders_created_at_id}</li>
+     * </ul>
+     * Totals are not indexed, a total range is only accepted next to one of these.
+     */
+    private void requireIndexedFilter(OrderSearchRequest request) {
+        if (request.getFrom() != null && request.getTo() != null && request.getFrom().isAfter(request.getTo())) {
+            throw new ValidationException("'from' must not be after 'to'");
+        }
+        if (request.getMinTotal() != null && request.getMaxTotal() != null
+                && request.getMinTotal().compareTo(request.getMaxTotal()) > 0) {
+            throw new ValidationException("'minTotal' must not be greater than 'maxTotal'");
+        }
+
+        boolean indexed = hasText(request.getOrderNumber())
+                || hasText(request.getCustomerEmail())
+                || request.getStatus() != null
+                || request.getPaymentStatus() != null
+                || request.getFrom() != null
+                || request.getTo() != null;
+        if (!indexed) {
+            throw new ValidationException(
+                    "Search by order number, customer email, status, payment status or date range; " +
+                    "a total range can only narrow one of these");
+        }
+    }
+
+    private String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
     @Transactional
@@ -173,19 +502,16 @@ public class OrderService {
             throw new UnauthorizedException("You don't have permission to update this order");
         }
 
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(request.getStatus());
+        orderSellerRepository.updateStatus(orderId, request.getStatus());
 
         if (request.getStatus() == OrderStatus.CANCELLED) {
             order.setCancelReason(request.getCancelReason());
             order.setCancelledAt(LocalDateTime.now());
             order.setPaymentStatus(PaymentStatus.REFUNDED);
 
-            // Restore stock
-            for (OrderItem item : order.getItems()) {
-                Product product = item.getProduct();
-                product.setStock(product.getStock() + item.getQuantity());
-                productRepository.save(product);
-            }
+            restoreStock(order);
         }
 
         if (request.getStatus() == OrderStatus.DELIVERED) {
@@ -193,8 +519,80 @@ public class OrderService {
         }
 
         order = orderRepository.save(order);
+        if (previousStatus != order.getStatus()) {
+            publishStatusChange(order, previousStatus);
+        }
         log.info("Order status updated: {} to {}", order.getOrderNumber(), request.getStatus());
-        return mapToResponse(order);
+        return toResponse(order);
+    }
+
+    /**
+     * Moves many orders to the same status at once, e.g. when a seller ships a day's orders. Ownership of
+     * the whole set is checked with one query, the orders and their seller rows are updated with one
+     * set-based statement each, and cancelled orders are restocked with one update per product. Orders
+     * that are missing, not the seller's, or already cancelled are reported and left untouched.
+     */
+    @Transactional
+    public BatchOrderStatusResponse updateOrderStatuses(BatchUpdateOrderStatusRequest request, User user) {
+        List<UUID> orderIds = new ArrayList<>(new LinkedHashSet<>(request.getOrderIds()));
+        OrderStatus status = request.getStatus();
+
+        Map<UUID, Order> orders = orderRepository.findAllByIdInForUpdate(orderIds).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        Set<UUID> permitted = user.getRole() == UserRole.ADMIN
+                ? orders.keySet()
+                : orderSellerRepository.findOrderIdsBySellerId(user.getId(), orders.keySet());
+
+        Map<UUID, String> errors = new HashMap<>();
+        List<UUID> changed = new ArrayList<>();
+        for (UUID orderId : orderIds) {
+            Order order = orders.get(orderId);
+            if (order == null) {
+                errors.put(orderId, "Order not found");
+            } else if (!permitted.contains(orderId)) {
+                errors.put(orderId, "You don't have permission to update this order");
+            } else if (order.getStatus() == OrderStatus.CANCELLED && status != OrderStatus.CANCELLED) {
+                errors.put(orderId, "Cannot update a cancelled order");
+            } else if (order.getStatus() != status) {
+                changed.add(orderId);
+            }
+        }
+
+        if (!changed.isEmpty()) {
+            applyStatus(changed, status, request.getCancelReason());
+            for (UUID orderId : changed) {
+                Order order = orders.get(orderId);
+                publishStatusChange(order, order.getStatus(), status, request.getCancelReason());
+            }
+        }
+
+        List<BatchOrderStatusResponse.StatusResult> results = new ArrayList<>();
+        for (UUID orderId : orderIds) {
+            Order order = orders.get(orderId);
+            String error = errors.get(orderId);
+            results.add(error != null
+                    ? BatchOrderStatusResponse.StatusResult.builder()
+                            .orderId(orderId)
+                            .success(false)
+                            .orderNumber(order != null && permitted.contains(orderId) ? order.getOrderNumber() : null)
+                            .error(error)
+                            .build()
+                    : BatchOrderStatusResponse.StatusResult.builder()
+                            .orderId(orderId)
+                            .success(true)
+                            .orderNumber(order.getOrderNumber())
+                            .previousStatus(order.getStatus())
+                            .status(status)
+                            .build());
+        }
+
+        log.info("Batch status update to {} by {}: {} changed, {} rejected", status, user.getEmail(), changed.size(), errors.size());
+        return BatchOrderStatusResponse.builder()
+                .total(orderIds.size())
+                .succeeded(orderIds.size() - errors.size())
+                .failed(errors.size())
+                .results(results)
+                .build();
     }
 
     @Transactional
@@ -211,40 +609,311 @@ public class OrderService {
             throw new ValidationException("Cannot cancel order with status: " + order.getStatus());
         }
 
+        OrderStatus previousStatus = order.getStatus();
         order.setStatus(OrderStatus.CANCELLED);
+        orderSellerRepository.updateStatus(orderId, OrderStatus.CANCELLED);
         order.setCancelReason(reason);
         order.setCancelledAt(LocalDateTime.now());
         order.setPaymentStatus(PaymentStatus.REFUNDED);
 
-        // Restore stock
-        for (OrderItem item : order.getItems()) {
-            Product product = item.getProduct();
-            product.setStock(product.getStock() + item.getQuantity());
-            productRepository.save(product);
-        }
+        restoreStock(order);
 
         order = orderRepository.save(order);
+        publishStatusChange(order, previousStatus);
         log.info("Order cancelled: {}", order.getOrderNumber());
-        return mapToResponse(order);
+        return toResponse(order);
     }
 
     // Helper methods
+    // Responses come from the snapshot, items are only loaded when a cancellation restocks them
+    /**
+     * Order ids are version 7 UUIDs created in the same persist as {@code created_at}, so the lookup is
+     * bounded to a day either side of the id's timestamp; that covers the time zone the column was written
+     * in and keeps partitioned orders to one or two months. Older ids without a timestamp scan them all.
+     */
     private Order findOrderById(UUID orderId) {
-        return orderRepository.findById(orderId)
+        return UuidUtil.timestamp(orderId)
+                .map(timestamp -> LocalDateTime.ofInstant(timestamp, ZoneId.systemDefault()))
+                .map(createdAt -> orderRepository.findByIdCreatedBetween(orderId, createdAt.minusDays(1), createdAt.plusDays(1)))
+                .orElseGet(() -> orderRepository.findById(orderId))
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
     }
 
-    private boolean orderContainsSellerProduct(UUID orderId, UUID sellerId) {
-        return orderRepository.orderContainsSellerProduct(orderId, sellerId);
+    /**
+     * Loads every product of the cart with a single query and reserves the requested quantities with one
+     * conditional decrement per product. Rows are updated in database id order so concurrent checkouts
+     * always lock them in the same sequence. Hot SKUs are reserved from the {@link InventoryLedger} instead
+     * of their row. All failing items are reported together; any partial reservation is undone by the
+     * surrounding transaction rolling back.
+     */
+    private Map<UUID, Product> reserveStock(List<CreateOrderRequest.OrderItemRequest> items) {
+        Map<UUID, Integer> quantities = sumQuantities(items);
+        Map<UUID, Product> products = productRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        requireProducts(quantities, products);
+
+        Map<UUID, Integer> ledgerQuantities = new HashMap<>();
+        List<String> errors = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> {
+            if (inventoryLedger.isTracked(productId)) {
+                ledgerQuantities.put(productId, quantity);
+            } else if (products.get(productId).getStock() < quantity) {
+                errors.add("Insufficient stock for product: " + products.get(productId).getName());
+            }
+        });
+
+        // Only touch rows once the snapshot says the whole cart can be served
+        if (errors.isEmpty()) {
+            quantities.forEach((productId, quantity) -> {
+                if (!ledgerQuantities.containsKey(productId) && productRepository.decrementStock(productId, quantity) == 0) {
+                    errors.add("Insufficient stock for product: " + products.get(productId).getName());
+                }
+            });
+            inventoryLedger.reserveAll(ledgerQuantities).forEach(productId ->
+                    errors.add("Insufficient stock for product: " + products.get(productId).getName()));
+        }
+
+        if (!errors.isEmpty()) {
+            throw new ValidationException("Some items could not be reserved", errors);
+        }
+        // Ledger stock is read live, only cached details of row-backed stock go stale
+        productDetailCache.changed(quantities.keySet().stream()
+                .filter(productId -> !ledgerQuantities.containsKey(productId))
+                .toList());
+        return products;
+    }
+
+    /**
+     * Takes stock for one order of a batch from products that are already locked by the batch. Either
+     * every item is taken or nothing is; the row updates are written by Hibernate in batches at flush.
+     */
+    private void allocateLockedStock(Map<UUID, Integer> quantities, Map<UUID, Product> products) {
+        Map<UUID, Integer> ledgerQuantities = new HashMap<>();
+        List<String> errors = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> {
+            if (inventoryLedger.isTracked(productId)) {
+                ledgerQuantities.put(productId, quantity);
+            } else if (products.get(productId).getStock() < quantity) {
+                errors.add("Insufficient stock for product: " + products.get(productId).getName());
+            }
+        });
+
+        if (errors.isEmpty()) {
+            inventoryLedger.reserveAll(ledgerQuantities).forEach(productId ->
+                    errors.add("Insufficient stock for product: " + products.get(productId).getName()));
+        }
+        if (!errors.isEmpty()) {
+            throw new ValidationException("Some items could not be reserved", errors);
+        }
+
+        quantities.forEach((productId, quantity) -> {
+            if (!ledgerQuantities.containsKey(productId)) {
+                Product product = products.get(productId);
+                product.setStock(product.getStock() - quantity);
+            }
+        });
+        productDetailCache.changed(quantities.keySet().stream()
+                .filter(productId -> !ledgerQuantities.containsKey(productId))
+                .toList());
+    }
+
+    // Total quantity per product, in the order rows are locked in
+    private Map<UUID, Integer> sumQuantities(List<CreateOrderRequest.OrderItemRequest> items) {
+        Map<UUID, Integer> quantities = new TreeMap<>(UuidUtil.DATABASE_ORDER);
+        for (CreateOrderRequest.OrderItemRequest item : items) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    private void requireProducts(Map<UUID, Integer> quantities, Map<UUID, Product> products) {
+        List<String> errors = quantities.keySet().stream()
+                .filter(productId -> !products.containsKey(productId))
+                .map(productId -> "Product not found with id: " + productId)
+                .toList();
+        if (!errors.isEmpty()) {
+            throw new ValidationException("Some items could not be reserved", errors);
+        }
+    }
+
+    private List<OrderItem> buildOrderItems(CreateOrderRequest request, Map<UUID, Product> products) {
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (CreateOrderRequest.OrderItemRequest itemRequest : request.getItems()) {
+            Product product = products.get(itemRequest.getProductId());
+            long lineTotal = pricingEngine.lineTotal(PricingEngine.toCents(product.getPrice()), itemRequest.getQuantity());
+
+            orderItems.add(OrderItem.builder()
+                    .product(product)
+                    .quantity(itemRequest.getQuantity())
+                    .price(product.getPrice())
+                    .subtotal(PricingEngine.toAmount(lineTotal))
+                    .build());
+        }
+        return orderItems;
+    }
+
+    private long sumSubtotals(List<OrderItem> orderItems) {
+        long subtotal = 0;
+        for (OrderItem item : orderItems) {
+            subtotal = Math.addExact(subtotal, PricingEngine.toCents(item.getSubtotal()));
+        }
+        return subtotal;
+    }
+
+    private Order buildOrder(
+            CreateOrderRequest request,
+            User customer,
+            String orderNumber,
+            List<OrderItem> orderItems,
+            long subtotal,
+            long discount
+    ) {
+        // Calculate shipping, tax, and total
+        PricingEngine.Totals totals = pricingEngine.price(subtotal, discount);
+
+        Order order = Order.builder()
+                .orderNumber(orderNumber)
+                .customer(customer)
+                .status(OrderStatus.PENDING)
+                .subtotal(PricingEngine.toAmount(totals.subtotal()))
+                .discount(PricingEngine.toAmount(totals.discount()))
+                .shipping(PricingEngine.toAmount(totals.shipping()))
+                .tax(PricingEngine.toAmount(totals.tax()))
+                .total(PricingEngine.toAmount(totals.total()))
+                .shippingAddress(request.getShippingAddress())
+                .paymentMethod(request.getPaymentMethod())
+                .voucherCode(request.getVoucherCode())
+                .referralCode(request.getReferralCode())
+                .notes(request.getNotes())
+                .items(orderItems)
+                .build();
+
+        orderItems.forEach(item -> item.setOrder(order));
+        return order;
     }
 
-    private String generateOrderNumber() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        String random = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-        return "ORD-" + timestamp + "-" + random;
+    // Set-based counterpart of updateOrderStatus for orders that have already been checked
+    private void applyStatus(List<UUID> orderIds, OrderStatus status, String cancelReason) {
+        LocalDateTime now = LocalDateTime.now();
+        if (status == OrderStatus.CANCELLED) {
+            orderRepository.cancelByIdIn(orderIds, status, PaymentStatus.REFUNDED, cancelReason, now);
+            restockCancelled(orderIds);
+        } else if (status == OrderStatus.DELIVERED) {
+            orderRepository.updateStatusAndPaymentByIdIn(orderIds, status, PaymentStatus.PAID, now);
+        } else {
+            orderRepository.updateStatusByIdIn(orderIds, status, now);
+        }
+        orderSellerRepository.updateStatusByOrderIdIn(orderIds, status);
+    }
+
+    // Sent to STOMP subscribers by OrderStatusPublisher once the transaction commits
+    private void publishStatusChange(Order order, OrderStatus previousStatus) {
+        eventPublisher.publishEvent(OrderStatusEvent.builder()
+                .orderId(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .customerId(order.getCustomer().getId())
+                .previousStatus(previousStatus)
+                .status(order.getStatus())
+                .paymentStatus(order.getPaymentStatus())
+                .cancelReason(order.getCancelReason())
+                .changedAt(LocalDateTime.now())
+                .sellerIds(orderSellerCache.getSellers(order.getId()))
+                .build());
+    }
+
+    // For orders changed with a bulk update, whose entity still holds the previous state
+    private void publishStatusChange(Order order, OrderStatus previousStatus, OrderStatus status, String cancelReason) {
+        PaymentStatus paymentStatus = switch (status) {
+            case CANCELLED -> PaymentStatus.REFUNDED;
+            case DELIVERED -> PaymentStatus.PAID;
+            default -> order.getPaymentStatus();
+        };
+        eventPublisher.publishEvent(OrderStatusEvent.builder()
+                .orderId(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .customerId(order.getCustomer().getId())
+                .previousStatus(previousStatus)
+                .status(status)
+                .paymentStatus(paymentStatus)
+                .cancelReason(status == OrderStatus.CANCELLED ? cancelReason : null)
+                .changedAt(LocalDateTime.now())
+                .sellerIds(orderSellerCache.getSellers(order.getId()))
+                .build());
+    }
+
+    // Seller rows are written with the orders and cached for authorization checks
+    private void saveOrderSellers(List<Order> orders) {
+        List<OrderSeller> orderSellers = new ArrayList<>();
+        for (Order order : orders) {
+            List<OrderSeller> rows = buildOrderSellers(order);
+            orderSellers.addAll(rows);
+            orderSellerCache.remember(order.getId(), rows.stream()
+                    .map(row -> row.getSeller().getId())
+                    .collect(Collectors.toSet()));
+        }
+        orderSellerRepository.saveAll(orderSellers);
     }
 
-    private BigDecimal calculateVoucherDiscount(Voucher voucher, BigDecimal subtotal) {
+    // One row per seller in the order, with the part of the subtotal that belongs to them
+    private List<OrderSeller> buildOrderSellers(Order order) {
+        Map<UUID, Long> sellerSubtotals = new HashMap<>();
+        Map<UUID, User> sellers = new HashMap<>();
+        for (OrderItem item : order.getItems()) {
+            User seller = item.getProduct().getSeller();
+            sellers.putIfAbsent(seller.getId(), seller);
+            sellerSubtotals.merge(seller.getId(), PricingEngine.toCents(item.getSubtotal()), Math::addExact);
+        }
+
+        return sellerSubtotals.entrySet().stream()
+                .map(entry -> OrderSeller.builder()
+                        .order(order)
+                        .seller(sellers.get(entry.getKey()))
+                        .status(order.getStatus())
+                        .createdAt(order.getCreatedAt())
+                        .sellerSubtotal(PricingEngine.toAmount(entry.getValue()))
+                        .build())
+                .toList();
+    }
+
+    private boolean hasText(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    // Put the stock of a cancelled order back, one update per product in id order
+    private void restoreStock(Order order) {
+        Map<UUID, Integer> quantities = new TreeMap<>(UuidUtil.DATABASE_ORDER);
+        for (OrderItem item : order.getItems()) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        restoreStock(quantities);
+    }
+
+    private void restoreStock(Map<UUID, Integer> quantities) {
+        quantities.forEach((productId, quantity) -> {
+            if (inventoryLedger.isTracked(productId)) {
+                inventoryLedger.release(productId, quantity);
+            } else {
+                productRepository.adjustStock(productId, quantity);
+            }
+        });
+        // A release falls back to the row when the product stopped being tracked, so drop them all
+        productDetailCache.changed(quantities.keySet());
+    }
+
+    // Restock several cancelled orders with one update per product, summed over all of them
+    private void restockCancelled(List<UUID> orderIds) {
+        Map<UUID, Integer> quantities = new TreeMap<>(UuidUtil.DATABASE_ORDER);
+        for (Object[] row : orderItemRepository.sumQuantitiesByProduct(orderIds)) {
+            quantities.put((UUID) row[0], ((Number) row[1]).intValue());
+        }
+        restoreStock(quantities);
+    }
+
+    private boolean orderContainsSellerProduct(UUID orderId, UUID sellerId) {
+        return orderSellerCache.isSeller(orderId, sellerId);
+    }
+
+    private long calculateVoucherDiscount(Voucher voucher, long subtotal) {
         // Validate voucher
         if (!voucher.getIsActive()) {
             throw new ValidationException("Voucher is not active");
@@ -255,7 +924,7 @@ public class OrderService {
             throw new ValidationException("Voucher is expired or not yet valid");
         }
 
-        if (voucher.getMinPurchase() != null && subtotal.compareTo(voucher.getMinPurchase()) < 0) {
+        if (voucher.getMinPurchase() != null && subtotal < PricingEngine.toCents(voucher.getMinPurchase())) {
             throw new ValidationException("Minimum purchase amount not met for this voucher");
         }
 
@@ -263,32 +932,70 @@ public class OrderService {
             throw new ValidationException("Voucher usage limit reached");
         }
 
-        BigDecimal discount = BigDecimal.ZERO;
+        return pricingEngine.voucherDiscount(subtotal, voucher.getType(), voucher.getValue(), voucher.getMaxDiscount());
+    }
 
-        if (voucher.getType() == VoucherType.PERCENTAGE) {
-            discount = subtotal.multiply(voucher.getValue()).divide(BigDecimal.valueOf(100));
-            if (voucher.getMaxDiscount() != null && discount.compareTo(voucher.getMaxDiscount()) > 0) {
-                discount = voucher.getMaxDiscount();
-            }
-        } else if (voucher.getType() == VoucherType.FIXED_AMOUNT) {
-            discount = voucher.getValue();
-        }
+    private Page<OrderResponse> mapPage(Page<Order> orders) {
+        fetchDetailsWithoutSnapshot(orders.getContent());
+        return orders.map(this::toResponse);
+    }
 
-        return discount;
+    // One extra row was fetched to know whether another page follows
+    private CursorPage<OrderResponse> mapCursorPage(List<Order> orders, int size) {
+        List<Order> content = orders.size() > size ? orders.subList(0, size) : orders;
+        fetchDetailsWithoutSnapshot(content);
+
+        Order last = content.isEmpty() ? null : content.getLast();
+        return CursorPage.<OrderResponse>builder()
+                .content(content.stream().map(this::toResponse).toList())
+                .size(size)
+                .nextCursor(orders.size() > size ? CursorUtil.encode(last.getCreatedAt(), last.getId()) : null)
+                .build();
     }
 
-    private BigDecimal calculateShipping(BigDecimal subtotal, BigDecimal discount) {
-        // Free shipping for orders over $100 after discount
-        BigDecimal afterDiscount = subtotal.subtract(discount);
-        if (afterDiscount.compareTo(BigDecimal.valueOf(100)) >= 0) {
-            return BigDecimal.ZERO;
+    // Orders created before snapshots existed get their customer, items and products in one query per page
+    private void fetchDetailsWithoutSnapshot(List<Order> orders) {
+        List<UUID> orderIds = orders.stream()
+                .filter(order -> order.getSnapshot() == null)
+                .map(Order::getId)
+                .toList();
+        if (!orderIds.isEmpty()) {
+            orderRepository.fetchItemsByIdIn(orderIds);
         }
-        return BigDecimal.valueOf(10.00);
     }
 
-    private BigDecimal calculateTax(BigDecimal amount) {
-        // 10% tax
-        return amount.multiply(BigDecimal.valueOf(0.10));
+    /**
+     * Stores the denormalized response of a new order on the order itself, so reading it later takes a
+     * single row instead of joining customers, items and products. Status, payment and cancellation
+     * fields still change after checkout; they are left out and patched in by {@link #toResponse}.
+     * <p>
+     * Call it before the order is persisted: ids are reserved up front and the creation time is read from
+     * the row, so the snapshot is part of the INSERT rather than an UPDATE of every new order on flush.
+     */
+    void writeSnapshot(Order order) {
+        order.setSnapshot(mapToResponse(order).toBuilder()
+                .status(null)
+                .paymentStatus(null)
+                .cancelReason(null)
+                .cancelledAt(null)
+                .createdAt(null)
+                .updatedAt(null)
+                .build());
+    }
+
+    // The snapshot is copied, changing the managed instance would rewrite the column on flush
+    private OrderResponse toResponse(Order order) {
+        if (order.getSnapshot() == null) {
+            return mapToResponse(order);
+        }
+        return order.getSnapshot().toBuilder()
+                .status(order.getStatus())
+                .paymentStatus(order.getPaymentStatus())
+                .cancelReason(order.getCancelReason())
+                .cancelledAt(order.getCancelledAt())
+                .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
+                .build();
     }
 
     private OrderResponse mapToResponse(Order order) {
@@ -309,7 +1016,7 @@ public class OrderService {
                             .build();
 
                     return OrderResponse.OrderItemResponse.builder()
-                            .id(item.getId())
+                            .id(item.reserveId())
                             .product(productInfo)
                             .quantity(item.getQuantity())
                             .price(item.getPrice())
@@ -319,7 +1026,7 @@ public class OrderService {
                 .toList();
 
         return OrderResponse.builder()
-                .id(order.getId())
+                .id(order.reserveId())
                 .orderNumber(order.getOrderNumber())
                 .customer(customerInfo)
                 .status(order.getStatus())
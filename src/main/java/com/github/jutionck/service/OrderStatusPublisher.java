@@ -0,0 +1,35 @@
+package com.github.jutionck.service;
+
+import com.github.jutionck.dto.response.OrderStatusEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.UUID;
+
+/**
+ * Pushes order status changes to STOMP subscribers once the change is committed, so clients no longer
+ * have to poll the order. Customers receive them on {@code /topic/orders/{customerId}} and every seller
+ * in the order on {@code /topic/seller/{sellerId}/orders}. Rolled back changes are never sent.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderStatusPublisher {
+    public static final String CUSTOMER_TOPIC_PREFIX = "/topic/orders/";
+    public static final String SELLER_TOPIC_PREFIX = "/topic/seller/";
+    public static final String SELLER_TOPIC_SUFFIX = "/orders";
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    @TransactionalEventListener
+    public void onStatusChanged(OrderStatusEvent event) {
+        messagingTemplate.convertAndSend(CUSTOMER_TOPIC_PREFIX + event.getCustomerId(), event);
+        for (UUID sellerId : event.getSellerIds()) {
+            messagingTemplate.convertAndSend(SELLER_TOPIC_PREFIX + sellerId + SELLER_TOPIC_SUFFIX, event);
+        }
+        log.debug("Published status {} of order {}", event.getStatus(), event.getOrderNumber());
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.jutionck.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tells cached price quotes whether the products and vouchers they were priced from have changed.
+ * <p>
+ * Every committed change to something that affects a price stamps its id with the next value of a global
+ * clock. A quote remembers the clock value read before it loaded its inputs, and stays valid as long as
+ * none of its ids was stamped later than that. Reading the clock first errs on the side of repricing when
+ * a change commits while a quote is being built. Stamps are kept for {@code cart.quote-ttl-seconds}: a
+ * quote is repriced once it is that old anyway, so an older stamp cannot invalidate anything.
+ */
+@Component
+public class PriceVersions {
+    private final AtomicLong clock = new AtomicLong();
+    private Cache<UUID, Long> changedAt;
+
+    @Value("${cart.quote-ttl-seconds:300}")
+    private long quoteTtlSeconds;
+
+    @PostConstruct
+    void initCache() {
+        changedAt = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(quoteTtlSeconds))
+                .build();
+    }
+
+    public long stamp() {
+        return clock.get();
+    }
+
+    public boolean unchangedSince(Collection<UUID> ids, long stamp) {
+        for (UUID id : ids) {
+            Long changed = changedAt.getIfPresent(id);
+            if (changed != null && changed > stamp) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Applied once the surrounding transaction commits, a rolled back change invalidates nothing
+    public void changed(UUID id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            changedAt.put(id, clock.incrementAndGet());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                changedAt.put(id, clock.incrementAndGet());
+            }
+        });
+    }
+}
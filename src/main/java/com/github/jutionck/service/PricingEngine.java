@@ -0,0 +1,74 @@
+package com.github.jutionck.service;
+
+import com.github.jutionck.enums.VoucherType;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Checkout arithmetic in fixed-point minor units (cents held in a {@code long}).
+ * <p>
+ * Amounts enter through {@link #toCents} and leave through {@link #toAmount}; in between everything is
+ * integer math. Rates are expressed in basis points and every division rounds half up, so a given cart
+ * always prices to the same cents no matter how the intermediate values were produced. Overflow throws
+ * instead of wrapping.
+ */
+@Component
+public class PricingEngine {
+    private static final long BASIS_POINTS = 10_000;
+
+    // Free shipping from $100 after discount, flat $10 below that
+    private static final long FREE_SHIPPING_THRESHOLD = 10_000;
+    private static final long FLAT_SHIPPING = 1_000;
+
+    // 10% tax on the discounted subtotal
+    private static final long TAX_RATE_BASIS_POINTS = 1_000;
+
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public long lineTotal(long unitPrice, int quantity) {
+        return Math.multiplyExact(unitPrice, quantity);
+    }
+
+    /**
+     * Discount granted by a voucher on {@code subtotal}. Percentages are rounded half up to the cent and
+     * capped at {@code maxDiscount} when one is set; no discount ever exceeds the subtotal.
+     */
+    public long voucherDiscount(long subtotal, VoucherType type, BigDecimal value, BigDecimal maxDiscount) {
+        long discount = switch (type) {
+            case PERCENTAGE -> {
+                long percentage = applyRate(subtotal, toBasisPoints(value));
+                yield maxDiscount != null ? Math.min(percentage, toCents(maxDiscount)) : percentage;
+            }
+            case FIXED_AMOUNT -> toCents(value);
+            case FREE_SHIPPING -> 0;
+        };
+        return Math.min(discount, subtotal);
+    }
+
+    public Totals price(long subtotal, long discount) {
+        long afterDiscount = subtotal - discount;
+        long shipping = afterDiscount >= FREE_SHIPPING_THRESHOLD ? 0 : FLAT_SHIPPING;
+        long tax = applyRate(afterDiscount, TAX_RATE_BASIS_POINTS);
+        return new Totals(subtotal, discount, shipping, tax, afterDiscount + shipping + tax);
+    }
+
+    // Percent with up to two decimals, e.g. 12.5 -> 1250
+    private static long toBasisPoints(BigDecimal percent) {
+        return percent.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    // amount * rate / 10000, rounded half up; amounts are never negative here
+    private static long applyRate(long amount, long basisPoints) {
+        return (Math.multiplyExact(amount, basisPoints) + BASIS_POINTS / 2) / BASIS_POINTS;
+    }
+
+    public record Totals(long subtotal, long discount, long shipping, long tax, long total) { }
+}
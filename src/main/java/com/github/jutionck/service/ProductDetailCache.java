@@ -0,0 +1,119 @@
+package com.github.jutionck.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.jutionck.dto.response.ProductResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of mapped product details in front of {@link ProductService#getProductById}.
+ * <p>
+ * Every committed change to a product, including its stock, stamps the product with the next value of a
+ * version clock and drops its entry. An entry remembers the clock value read before it was loaded. If the
+ * product was stamped later, the load may have read the old row; that entry is dropped and the
+ * caller loads again without caching. Stamps are kept for one minute, and a load that took longer than
+ * that is never cached, so the stamps stay bounded by the recent change rate. Concurrent misses on the
+ * same product wait for a single load.
+ * Entries also expire after {@code product.detail-cache.ttl-minutes}. This covers changes made elsewhere,
+ * such as a seller renaming their account. Hits and misses are published as the {@code cache.gets}
+ * metric with {@code cache=product-details}.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductDetailCache {
+    // A stamp is only needed while a load that started before it may still be running
+    private static final Duration STAMP_RETENTION = Duration.ofMinutes(1);
+
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final Cache<UUID, Long> changedAt = Caffeine.newBuilder()
+            .expireAfterWrite(STAMP_RETENTION)
+            .build();
+    private Cache<UUID, Entry> details;
+
+    @Value("${product.detail-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${product.detail-cache.ttl-minutes:10}")
+    private long ttlMinutes;
+
+    @PostConstruct
+    void initCache() {
+        details = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, details, "product-details");
+    }
+
+    public ProductResponse get(UUID productId, Function<UUID, ProductResponse> loader) {
+        Entry entry = details.get(productId, id -> {
+            long version = clock.get();
+            long start = System.nanoTime();
+            ProductResponse response = loader.apply(id);
+            // Stamps newer than the load may have expired already, so a load this slow is never trusted
+            boolean tooSlow = System.nanoTime() - start > STAMP_RETENTION.toNanos();
+            return new Entry(response, tooSlow ? -1 : version);
+        });
+        Long changed = changedAt.getIfPresent(productId);
+        if (entry.version() >= 0 && (changed == null || changed <= entry.version())) {
+            return entry.response();
+        }
+
+        // Changed while it was being loaded
+        details.asMap().remove(productId, entry);
+        return loader.apply(productId);
+    }
+
+    /**
+     * Drops the cached details of a product once the surrounding transaction commits.
+     */
+    public void changed(UUID productId) {
+        afterCommit(() -> evict(productId));
+    }
+
+    public void changed(Collection<UUID> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<UUID> ids = List.copyOf(productIds);
+        afterCommit(() -> ids.forEach(this::evict));
+    }
+
+    private void evict(UUID productId) {
+        changedAt.put(productId, clock.incrementAndGet());
+        details.invalidate(productId);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record Entry(ProductResponse response, long version) {
+    }
+}
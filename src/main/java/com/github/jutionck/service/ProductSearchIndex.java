@@ -0,0 +1,217 @@
+package com.github.jutionck.service;
+
+import com.github.jutionck.dto.response.ProductFacetRow;
+import com.github.jutionck.dto.response.ProductSearchRow;
+import com.github.jutionck.dto.response.SearchIndexStatsResponse;
+import com.github.jutionck.entity.Product;
+import com.github.jutionck.exceptions.ValidationException;
+import com.github.jutionck.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Optional in-JVM product search, enabled with {@code product.search.in-memory.enabled}. Resolves the
+ * matching product ids of a search in memory, so only the requested page is read from the database.
+ * <p>
+ * The index is built once the application is ready and kept current from {@link ProductService} when
+ * product changes commit. Until it is built, {@link #search} returns empty and the database search is
+ * used. A rebuild builds a new index while the current one keeps serving, and replays the changes
+ * committed meanwhile before swapping it in.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductSearchIndex {
+    private final ProductRepository productRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock rebuilding = new ReentrantLock();
+
+    // Guarded by lock; changes are also recorded in pendingChanges while a rebuild runs
+    private InvertedIndex index;
+    private List<Consumer<InvertedIndex>> pendingChanges;
+
+    @Value("${product.search.in-memory.enabled:false}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    public SearchIndexStatsResponse rebuild() {
+        if (!enabled) {
+            throw new ValidationException("In-memory product search is disabled");
+        }
+        if (!rebuilding.tryLock()) {
+            throw new ValidationException("The product search index is already being rebuilt");
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            withWriteLock(() -> pendingChanges = new ArrayList<>());
+
+            InvertedIndex fresh = new InvertedIndex();
+            readOnlyTransaction().executeWithoutResult(tx -> {
+                try (Stream<ProductSearchRow> rows = productRepository.streamForSearchIndex()) {
+                    rows.forEach(fresh::add);
+                }
+            });
+
+            withWriteLock(() -> {
+                pendingChanges.forEach(change -> change.accept(fresh));
+                pendingChanges = null;
+                fresh.trim();
+                index = fresh;
+            });
+
+            SearchIndexStatsResponse stats = SearchIndexStatsResponse.builder()
+                    .documents(fresh.documentCount())
+                    .terms(fresh.termCount())
+                    .postingBytes(fresh.postingBytes())
+                    .buildMillis(System.currentTimeMillis() - start)
+                    .build();
+            log.info("Product search index built: {} products, {} terms, {} posting bytes in {} ms",
+                    stats.getDocuments(), stats.getTerms(), stats.getPostingBytes(), stats.getBuildMillis());
+            return stats;
+        } finally {
+            withWriteLock(() -> pendingChanges = null);
+            rebuilding.unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces a product once the surrounding transaction commits.
+     */
+    public void index(Product product) {
+        ProductSearchRow row = new ProductSearchRow(product.getId(), product.getName(), product.getBrand(),
+                product.getCategory(), product.getDescription(), product.getPrice());
+        afterCommit(index -> index.add(row));
+    }
+
+    /**
+     * Drops a product once the surrounding transaction commits.
+     */
+    public void remove(UUID productId) {
+        afterCommit(index -> index.remove(productId));
+    }
+
+    /**
+     * The requested page of product ids matching the search and filters, best match first, or empty
+     * while the index is disabled or not built yet.
+     */
+    public Optional<Page<UUID>> search(String search, String category, String brand,
+                                       BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        List<String> words = InvertedIndex.tokenize(search);
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                return Optional.empty();
+            }
+
+            int[] documents = index.search(words, lower(category), lower(brand), minPrice, maxPrice);
+            int from = (int) Math.min(pageable.getOffset(), documents.length);
+            int to = Math.min(from + pageable.getPageSize(), documents.length);
+            List<UUID> ids = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                ids.add(index.productId(documents[i]));
+            }
+            return Optional.of(new PageImpl<>(ids, pageable, documents.length));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Facet counts of the products {@link #search} matches for the same search and filters, grouped like
+     * the database facet query, or empty while the index is disabled or not built yet.
+     */
+    public Optional<List<ProductFacetRow>> countFacets(String search, String category, String brand,
+                                                       BigDecimal minPrice, BigDecimal maxPrice,
+                                                       List<BigDecimal> priceBounds) {
+        List<String> words = InvertedIndex.tokenize(search);
+        lock.readLock().lock();
+        try {
+            if (index == null) {
+                return Optional.empty();
+            }
+
+            int[] documents = index.search(words, lower(category), lower(brand), minPrice, maxPrice);
+            return Optional.of(index.countFacets(documents, priceBounds));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void afterCommit(Consumer<InvertedIndex> change) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(change);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(change);
+            }
+        });
+    }
+
+    private void apply(Consumer<InvertedIndex> change) {
+        withWriteLock(() -> {
+            if (index != null) {
+                change.accept(index);
+            }
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        });
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private String lower(String value) {
+        return value != null && !value.isEmpty() ? value.toLowerCase(Locale.ROOT) : null;
+    }
+}
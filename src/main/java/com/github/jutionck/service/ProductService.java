@@ -1,7 +1,11 @@
 package com.github.jutionck.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.jutionck.dto.request.ProductRequest;
 import com.github.jutionck.dto.request.ProductUpdateRequest;
+import com.github.jutionck.dto.response.ProductFacetRow;
+import com.github.jutionck.dto.response.ProductFacetsResponse;
 import com.github.jutionck.dto.response.ProductResponse;
 import com.github.jutionck.entity.Product;
 import com.github.jutionck.entity.User;
@@ -9,25 +13,71 @@ import com.github.jutionck.enums.UserRole;
 import com.github.jutionck.exceptions.ResourceNotFoundException;
 import com.github.jutionck.exceptions.UnauthorizedException;
 import com.github.jutionck.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class ProductService {
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
     private final ProductRepository productRepository;
     private final UserService userService;
+    private final InventoryLedger inventoryLedger;
+    private final PriceVersions priceVersions;
+    private final ProductSearchIndex productSearchIndex;
+    private final CategoryBrandCache categoryBrandCache;
+    private final ProductDetailCache productDetailCache;
+    private final MeterRegistry meterRegistry;
+
+    private Cache<FacetKey, ProductFacetsResponse> facetCache;
+
+    // Upper bounds of the price ranges counted as facets, ascending
+    @Value("${product.facets.price-bounds:50,100,250,500,1000}")
+    private List<BigDecimal> priceBounds;
+
+    @Value("${product.facets.cache-max-size:10000}")
+    private long facetCacheMaxSize;
+
+    @Value("${product.facets.cache-ttl-seconds:60}")
+    private long facetCacheTtlSeconds;
+
+    @PostConstruct
+    void initCache() {
+        priceBounds = priceBounds.stream().sorted().distinct().toList();
+        facetCache = Caffeine.newBuilder()
+                .maximumSize(facetCacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(facetCacheTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, facetCache, "product-facets");
+    }
 
     @Transactional
     public ProductResponse createProduct(ProductRequest request, User seller) {
@@ -48,15 +98,28 @@ public class ProductService {
                 .images(request.getImages())
                 .seller(seller)
                 .specifications(request.getSpecifications())
+                .hotSku(Boolean.TRUE.equals(request.getHotSku()))
                 .build();
 
         product = productRepository.save(product);
+        if (product.getHotSku()) {
+            inventoryLedger.track(product.getId());
+        }
+        productSearchIndex.index(product);
+        categoryBrandCache.productAdded(product.getCategory(), product.getBrand());
         return mapToResponse(product);
     }
 
     public ProductResponse getProductById(UUID productId) {
-        Product product = findProductById(productId);
-        return mapToResponse(product);
+        ProductResponse cached = productDetailCache.get(productId, id -> mapToResponse(findProductById(id)));
+
+        // Hot SKU stock lives in the ledger and changes with every order, so it is read live
+        if (inventoryLedger.isTracked(productId)) {
+            return cached.toBuilder()
+                    .stock(inventoryLedger.availableStock(productId, cached.getStock()))
+                    .build();
+        }
+        return cached;
     }
 
     public Page<ProductResponse> getAllProducts(Pageable pageable) {
@@ -71,15 +134,120 @@ public class ProductService {
             BigDecimal minPrice,
             BigDecimal maxPrice,
             Pageable pageable
+    ) {
+        // The in-memory index ranks by relevance only, sorted listings are left to the database
+        if (pageable.getSort().isUnsorted()) {
+            Optional<Page<UUID>> ids = productSearchIndex.search(search, category, brand, minPrice, maxPrice, pageable);
+            if (ids.isPresent()) {
+                return fetchPage(ids.get());
+            }
+        }
+
+        String tsQuery = search != null ? toPrefixQuery(search) : null;
+        Specification<Product> spec = filterSpec(tsQuery, category, brand, minPrice, maxPrice);
+        if (tsQuery != null && pageable.getSort().isUnsorted()) {
+            // Best full-text matches first unless another sort is requested
+            spec = spec.and((root, query, cb) -> {
+                query.orderBy(
+                        cb.desc(cb.function("fts_rank", Double.class, root.get("searchVector"), cb.literal(tsQuery))),
+                        cb.asc(root.get("id"))
+                );
+                return null;
+            });
+        }
+
+        return productRepository.findAll(spec, pageable)
+                .map(this::mapToResponse);
+    }
+
+    /**
+     * Product counts per category, brand and price range for the same filters as
+     * {@link #getProductsByFilters}. They are counted by whichever search serves that listing, since the
+     * in-memory index also matches words in brands and categories while the database only searches name
+     * and description. Index counts are current. Database counts come from one grouped query and are
+     * cached for a short time, so they may lag product changes by up to
+     * {@code product.facets.cache-ttl-seconds}.
+     */
+    public ProductFacetsResponse getProductFacets(
+            String search,
+            String category,
+            String brand,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            Pageable pageable
+    ) {
+        if (pageable.getSort().isUnsorted()) {
+            Optional<List<ProductFacetRow>> rows =
+                    productSearchIndex.countFacets(search, category, brand, minPrice, maxPrice, priceBounds);
+            if (rows.isPresent()) {
+                return toFacetsResponse(rows.get());
+            }
+        }
+
+        FacetKey key = new FacetKey(
+                search != null ? toPrefixQuery(search) : null,
+                lowerOrNull(category),
+                lowerOrNull(brand),
+                minPrice != null ? minPrice.stripTrailingZeros() : null,
+                maxPrice != null ? maxPrice.stripTrailingZeros() : null
+        );
+        // Concurrent misses on the same filters wait for a single query
+        return facetCache.get(key, this::countFacets);
+    }
+
+    private ProductFacetsResponse countFacets(FacetKey key) {
+        return toFacetsResponse(productRepository.countFacets(
+                filterSpec(key.tsQuery(), key.category(), key.brand(), key.minPrice(), key.maxPrice()), priceBounds));
+    }
+
+    private ProductFacetsResponse toFacetsResponse(List<ProductFacetRow> rows) {
+        Map<String, Long> categories = new HashMap<>();
+        Map<String, Long> brands = new HashMap<>();
+        long[] buckets = new long[priceBounds.size() + 1];
+        for (ProductFacetRow row : rows) {
+            categories.merge(row.category(), row.count(), Long::sum);
+            brands.merge(row.brand(), row.count(), Long::sum);
+            buckets[row.priceBucket()] += row.count();
+        }
+
+        List<ProductFacetsResponse.PriceRangeCount> priceRanges = new ArrayList<>(buckets.length);
+        for (int i = 0; i < buckets.length; i++) {
+            priceRanges.add(ProductFacetsResponse.PriceRangeCount.builder()
+                    .min(i > 0 ? priceBounds.get(i - 1) : null)
+                    .max(i < priceBounds.size() ? priceBounds.get(i) : null)
+                    .count(buckets[i])
+                    .build());
+        }
+
+        return ProductFacetsResponse.builder()
+                .categories(toFacetCounts(categories))
+                .brands(toFacetCounts(brands))
+                .priceRanges(priceRanges)
+                .build();
+    }
+
+    // Most products first, ties by name
+    private List<ProductFacetsResponse.FacetCount> toFacetCounts(Map<String, Long> counts) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .map(entry -> new ProductFacetsResponse.FacetCount(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    // Filters shared by the product listing and its facet counts
+    private Specification<Product> filterSpec(
+            String tsQuery,
+            String category,
+            String brand,
+            BigDecimal minPrice,
+            BigDecimal maxPrice
     ) {
         Specification<Product> spec = Specification.where(null);
 
-        if (search != null && !search.isEmpty()) {
+        if (tsQuery != null) {
+            // Full-text match on name and description
             spec = spec.and((root, query, cb) ->
-                    cb.or(
-                            cb.like(cb.lower(root.get("name")), "%" + search.toLowerCase() + "%"),
-                            cb.like(cb.lower(root.get("description")), "%" + search.toLowerCase() + "%")
-                    )
+                    cb.isTrue(cb.function("fts_match", Boolean.class, root.get("searchVector"), cb.literal(tsQuery)))
             );
         }
 
@@ -107,8 +275,24 @@ public class ProductService {
             );
         }
 
-        return productRepository.findAll(spec, pageable)
-                .map(this::mapToResponse);
+        return spec;
+    }
+
+    private String lowerOrNull(String value) {
+        return value != null && !value.isEmpty() ? value.toLowerCase() : null;
+    }
+
+    /**
+     * Turns free text into a tsquery that matches every word as a prefix, e.g. "wireless head" becomes
+     * {@code wireless:* & head:*}. Anything but letters and digits separates words, so user input cannot
+     * inject tsquery operators. Returns null when no word is left.
+     */
+    private String toPrefixQuery(String search) {
+        String tsQuery = Arrays.stream(NON_WORD.split(search))
+                .filter(word -> !word.isEmpty())
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+        return tsQuery.isEmpty() ? null : tsQuery;
     }
 
     public Page<ProductResponse> getSellerProducts(UUID sellerId, Pageable pageable) {
@@ -130,14 +314,18 @@ public class ProductService {
             throw new UnauthorizedException("You don't have permission to update this product");
         }
 
+        String oldCategory = product.getCategory();
+        String oldBrand = product.getBrand();
+
         if (request.getName() != null) {
             product.setName(request.getName());
         }
         if (request.getDescription() != null) {
             product.setDescription(request.getDescription());
         }
-        if (request.getPrice() != null) {
+        if (request.getPrice() != null && request.getPrice().compareTo(product.getPrice()) != 0) {
             product.setPrice(request.getPrice());
+            priceVersions.changed(productId);
         }
         if (request.getCompareAtPrice() != null) {
             product.setCompareAtPrice(request.getCompareAtPrice());
@@ -149,7 +337,12 @@ public class ProductService {
             product.setBrand(request.getBrand());
         }
         if (request.getStock() != null) {
-            product.setStock(request.getStock());
+            // Hot SKU stock is owned by the ledger, which writes it back to the row on its next flush
+            if (inventoryLedger.isTracked(productId)) {
+                inventoryLedger.setStock(productId, request.getStock());
+            } else {
+                product.setStock(request.getStock());
+            }
         }
         if (request.getImages() != null) {
             product.setImages(request.getImages());
@@ -157,8 +350,19 @@ public class ProductService {
         if (request.getSpecifications() != null) {
             product.setSpecifications(request.getSpecifications());
         }
+        if (request.getHotSku() != null && !request.getHotSku().equals(product.getHotSku())) {
+            product.setHotSku(request.getHotSku());
+            if (request.getHotSku()) {
+                inventoryLedger.track(productId);
+            } else {
+                inventoryLedger.untrack(productId);
+            }
+        }
 
         product = productRepository.save(product);
+        productSearchIndex.index(product);
+        categoryBrandCache.productChanged(oldCategory, oldBrand, product.getCategory(), product.getBrand());
+        productDetailCache.changed(productId);
         return mapToResponse(product);
     }
 
@@ -172,18 +376,35 @@ public class ProductService {
         }
 
         productRepository.delete(product);
+        inventoryLedger.untrack(productId);
+        productSearchIndex.remove(productId);
+        categoryBrandCache.productRemoved(product.getCategory(), product.getBrand());
+        productDetailCache.changed(productId);
+        priceVersions.changed(productId);
         log.info("Product deleted: {} by seller: {}", productId, seller.getEmail());
     }
 
     public List<String> getCategories() {
-        return productRepository.findDistinctCategories();
+        return categoryBrandCache.getCategories();
     }
 
     public List<String> getBrands() {
-        return productRepository.findDistinctBrands();
+        return categoryBrandCache.getBrands();
     }
 
     // Helper methods
+    // Reads only the products of one page and keeps the order the index ranked them in
+    private Page<ProductResponse> fetchPage(Page<UUID> ids) {
+        Map<UUID, Product> products = productRepository.findAllById(ids.getContent()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<ProductResponse> content = ids.getContent().stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .map(this::mapToResponse)
+                .toList();
+        return new PageImpl<>(content, ids.getPageable(), ids.getTotalElements());
+    }
+
     private Product findProductById(UUID productId) {
         return productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
@@ -205,7 +426,8 @@ public class ProductService {
                 .compareAtPrice(product.getCompareAtPrice())
                 .category(product.getCategory())
                 .brand(product.getBrand())
-                .stock(product.getStock())
+                .stock(inventoryLedger.availableStock(product.getId(), product.getStock()))
+                .hotSku(product.getHotSku())
                 .images(product.getImages())
                 .seller(sellerInfo)
                 .rating(product.getRating())
@@ -215,4 +437,8 @@ public class ProductService {
                 .updatedAt(product.getUpdatedAt())
                 .build();
     }
+
+    // Normalized filters, equal searches share one cache entry
+    private record FacetKey(String tsQuery, String category, String brand, BigDecimal minPrice, BigDecimal maxPrice) {
+    }
 }
@@ -2,15 +2,22 @@ package com.github.jutionck.service;
 
 import com.github.jutionck.dto.response.ReferralCodeResponse;
 import com.github.jutionck.entity.ReferralCode;
+import com.github.jutionck.entity.ReferralCredit;
 import com.github.jutionck.entity.User;
 import com.github.jutionck.exceptions.ResourceDuplicateException;
 import com.github.jutionck.exceptions.ResourceNotFoundException;
 import com.github.jutionck.repository.ReferralCodeRepository;
+import com.github.jutionck.repository.ReferralCreditRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Slf4j
@@ -19,6 +26,10 @@ import java.util.UUID;
 @Transactional(readOnly = true)
 public class ReferralService {
     private final ReferralCodeRepository referralCodeRepository;
+    private final ReferralCreditRepository referralCreditRepository;
+
+    @Value("${referral.credits.batch-size:1000}")
+    private int creditBatchSize;
 
     @Transactional
     public ReferralCodeResponse generateReferralCode(User user) {
@@ -37,24 +48,52 @@ public class ReferralService {
                 .build();
 
         referralCode = referralCodeRepository.save(referralCode);
-        return mapToResponse(referralCode);
+        return mapToResponse(referralCode, 0);
     }
 
     public ReferralCodeResponse getReferralCode(User user) {
-        ReferralCode referralCode = referralCodeRepository
-                .findByUserIdAndIsActive(user.getId(), true)
+        Object[] row = referralCodeRepository
+                .findActiveByUserIdWithPendingCredits(user.getId())
                 .stream()
                 .findFirst()
                 .orElseThrow(() -> new ResourceNotFoundException("No active referral code found"));
 
-        return mapToResponse(referralCode);
+        return mapToResponse((ReferralCode) row[0], (Long) row[1]);
     }
 
     public ReferralCodeResponse validateReferralCode(String code) {
-        ReferralCode referralCode = referralCodeRepository.findByCodeAndIsActive(code, true)
+        Object[] row = referralCodeRepository.findActiveByCodeWithPendingCredits(code)
+                .stream()
+                .findFirst()
                 .orElseThrow(() -> new ResourceNotFoundException("Referral code not found or inactive"));
 
-        return mapToResponse(referralCode);
+        return mapToResponse((ReferralCode) row[0], (Long) row[1]);
+    }
+
+    /**
+     * Appends a credit for a referral code used at checkout. The code row itself is not touched, so
+     * popular codes do not become a hot row; {@link #foldPendingCredits()} applies credits in batches.
+     */
+    @Transactional
+    public void recordCredit(String code, String orderNumber) {
+        referralCreditRepository.save(ReferralCredit.builder()
+                .code(code)
+                .orderNumber(orderNumber)
+                .build());
+    }
+
+    @Transactional
+    public void recordCredits(List<ReferralCredit> credits) {
+        referralCreditRepository.saveAll(credits);
+    }
+
+    @Transactional
+    @Scheduled(fixedDelayString = "${referral.credits.flush-interval-ms:5000}")
+    public void foldPendingCredits() {
+        int updated = referralCreditRepository.foldPendingCredits(creditBatchSize, LocalDateTime.now());
+        if (updated > 0) {
+            log.debug("Folded pending referral credits into {} referral code(s)", updated);
+        }
     }
 
     private String generateUniqueCode(User user) {
@@ -76,13 +115,15 @@ public class ReferralService {
         return code;
     }
 
-    private ReferralCodeResponse mapToResponse(ReferralCode referralCode) {
+    // Includes the credits that have not been folded into the row yet
+    private ReferralCodeResponse mapToResponse(ReferralCode referralCode, long pending) {
         return ReferralCodeResponse.builder()
                 .id(referralCode.getId())
                 .code(referralCode.getCode())
-                .usageCount(referralCode.getUsageCount())
+                .usageCount(referralCode.getUsageCount() + (int) pending)
                 .rewardAmount(referralCode.getRewardAmount())
-                .totalEarnings(referralCode.getTotalEarnings())
+                .totalEarnings(referralCode.getTotalEarnings()
+                        .add(referralCode.getRewardAmount().multiply(BigDecimal.valueOf(pending))))
                 .isActive(referralCode.getIsActive())
                 .createdAt(referralCode.getCreatedAt())
                 .updatedAt(referralCode.getUpdatedAt())
@@ -0,0 +1,77 @@
+package com.github.jutionck.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style order numbers: 41 bits of milliseconds since 2025-01-01, a 10 bit node id and a
+ * 12 bit sequence, rendered as {@code ORD-} followed by 13 Crockford base32 characters. The fixed width
+ * and an alphabet in ASCII order make the numbers sort by creation time, so inserts into the unique
+ * index on {@code orders.order_number} land at its right-hand edge.
+ * <p>
+ * The generator never goes backwards: within a millisecond, or while the wall clock is behind the last
+ * issued timestamp, it keeps counting the sequence, and a full sequence simply borrows the next
+ * millisecond.
+ * <p>
+ * Numbers are only unique across instances if each one runs with its own {@code order.number.node-id},
+ * so there is no default and startup fails without it.
+ */
+@Component
+public class SnowflakeOrderNumberGenerator implements OrderNumberGenerator {
+    static final long EPOCH = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final String PREFIX = "ORD-";
+    private static final int ENCODED_LENGTH = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final long nodeId;
+
+    // (timestamp << SEQUENCE_BITS) | sequence of the last issued id
+    private final AtomicLong lastState = new AtomicLong();
+
+    public SnowflakeOrderNumberGenerator(@Value("${order.number.node-id}") long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("order.number.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String nextOrderNumber() {
+        return encode(nextId());
+    }
+
+    long nextId() {
+        long state;
+        while (true) {
+            long now = System.currentTimeMillis() - EPOCH;
+            long last = lastState.get();
+            state = now > (last >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : last + 1;
+            if (lastState.compareAndSet(last, state)) {
+                break;
+            }
+        }
+
+        long timestamp = state >>> SEQUENCE_BITS;
+        long sequence = state & SEQUENCE_MASK;
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    static String encode(long id) {
+        char[] chars = new char[PREFIX.length() + ENCODED_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+}
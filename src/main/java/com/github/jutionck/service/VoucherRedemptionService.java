@@ -0,0 +1,50 @@
+package com.github.jutionck.service;
+
+import com.github.jutionck.entity.User;
+import com.github.jutionck.entity.Voucher;
+import com.github.jutionck.exceptions.ValidationException;
+import com.github.jutionck.repository.VoucherRedemptionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Records voucher redemptions. The global usage counter and the per-user limit are checked and
+ * applied by a single statement, so concurrent checkouts can neither lose an increment nor push a
+ * voucher past its {@code usageLimit}. Each redemption takes the user's next redemption number under a
+ * unique key, so of two racing redemptions by the same user only one gets that number; the other is
+ * refused as over the limit, even when the limit would have allowed both.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class VoucherRedemptionService {
+    private final VoucherRedemptionRepository voucherRedemptionRepository;
+
+    @Transactional
+    public void redeem(Voucher voucher, User user, String orderNumber) {
+        redeem(voucher.getId(), voucher.getCode(), user, orderNumber);
+    }
+
+    @Transactional
+    public void redeem(UUID voucherId, String voucherCode, User user, String orderNumber) {
+        int redeemed = voucherRedemptionRepository.redeem(
+                UUID.randomUUID(),
+                voucherId,
+                user.getId(),
+                orderNumber,
+                LocalDateTime.now()
+        );
+
+        // Thrown inside the transaction, so a redemption row written before the global check failed is rolled back
+        if (redeemed == 0) {
+            throw new ValidationException("Voucher usage limit reached");
+        }
+        log.info("Voucher {} redeemed by {} for order {}", voucherCode, user.getEmail(), orderNumber);
+    }
+}
@@ -25,6 +25,7 @@ import java.util.UUID;
 @Transactional(readOnly = true)
 public class VoucherService {
     private final VoucherRepository voucherRepository;
+    private final PriceVersions priceVersions;
 
     @Transactional
     public VoucherResponse createVoucher(VoucherRequest request, User seller) {
@@ -119,6 +120,7 @@ public class VoucherService {
         voucher.setIsActive(request.getIsActive());
 
         voucher = voucherRepository.save(voucher);
+        priceVersions.changed(voucherId);
         return mapToResponse(voucher);
     }
 
@@ -131,6 +133,7 @@ public class VoucherService {
         }
 
         voucherRepository.delete(voucher);
+        priceVersions.changed(voucherId);
         log.info("Voucher deleted: {}", voucher.getCode());
     }
 
@@ -0,0 +1,34 @@
+package com.github.jutionck.utils;
+
+import com.github.jutionck.exceptions.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque cursors for keyset pagination over {@code (createdAt, id)}. Clients only pass the token back;
+ * its content is not part of the API.
+ */
+public class CursorUtil {
+    private static final String SEPARATOR = "|";
+
+    public record Cursor(LocalDateTime createdAt, UUID id) { }
+
+    public static String encode(LocalDateTime createdAt, UUID id) {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            return new Cursor(LocalDateTime.parse(raw.substring(0, separator)), UUID.fromString(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new ValidationException("Invalid cursor");
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.github.jutionck.utils;
 
 import com.github.jutionck.dto.response.ApiResponse;
+import com.github.jutionck.dto.response.CursorPage;
 import com.github.jutionck.dto.response.ErrorResponse;
 import com.github.jutionck.dto.response.PagingResponse;
+import com.github.jutionck.dto.response.ProductFacetsResponse;
+import com.github.jutionck.dto.response.ProductPageResponse;
+import com.github.jutionck.dto.response.ProductResponse;
 import com.github.jutionck.dto.response.StatusResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
@@ -35,13 +39,55 @@ public class ResponseUtil {
                 .code(httpStatus.value())
                 .description(message)
                 .build();
+        ApiResponse<List<T>> response = ApiResponse.<List<T>>builder()
+                .status(status)
+                .data(page.getContent())
+                .paging(toPaging(page))
+                .build();
+
+        return ResponseEntity.status(httpStatus).body(response);
+    }
+
+    public static <T> ResponseEntity<ApiResponse<List<T>>> buildPageResponse(
+            HttpStatus httpStatus,
+            String message,
+            Page<T> page) {
+        return buildPagedResponse(httpStatus, message, page);
+    }
+
+    // Product listings can carry the facet counts of their filters next to the page
+    public static ResponseEntity<ProductPageResponse> buildProductPageResponse(
+            HttpStatus httpStatus,
+            String message,
+            Page<ProductResponse> page,
+            ProductFacetsResponse facets) {
+        StatusResponse status = StatusResponse.builder()
+                .code(httpStatus.value())
+                .description(message)
+                .build();
+        ProductPageResponse response = ProductPageResponse.builder()
+                .status(status)
+                .data(page.getContent())
+                .paging(toPaging(page))
+                .facets(facets)
+                .build();
+
+        return ResponseEntity.status(httpStatus).body(response);
+    }
+
+    // Keyset pages have no page number or totals, only the cursor of the next page
+    public static <T> ResponseEntity<ApiResponse<List<T>>> buildCursorResponse(
+            HttpStatus httpStatus,
+            String message,
+            CursorPage<T> page) {
+        StatusResponse status = StatusResponse.builder()
+                .code(httpStatus.value())
+                .description(message)
+                .build();
         PagingResponse paging = PagingResponse.builder()
-                .page(page.getNumber() + 1)
                 .rowsPerPage(page.getSize())
-                .totalRows(page.getTotalElements())
-                .totalPages(page.getTotalPages())
                 .hasNext(page.hasNext())
-                .hasPrevious(page.hasPrevious())
+                .nextCursor(page.getNextCursor())
                 .build();
 
         ApiResponse<List<T>> response = ApiResponse.<List<T>>builder()
@@ -53,11 +99,15 @@ public class ResponseUtil {
         return ResponseEntity.status(httpStatus).body(response);
     }
 
-    public static <T> ResponseEntity<ApiResponse<List<T>>> buildPageResponse(
-            HttpStatus httpStatus,
-            String message,
-            Page<T> page) {
-        return buildPagedResponse(httpStatus, message, page);
+    private static PagingResponse toPaging(Page<?> page) {
+        return PagingResponse.builder()
+                .page(page.getNumber() + 1)
+                .rowsPerPage(page.getSize())
+                .totalRows(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .hasNext(page.hasNext())
+                .hasPrevious(page.hasPrevious())
+                .build();
     }
 
     public static ResponseEntity<ErrorResponse> buildErrorResponse(
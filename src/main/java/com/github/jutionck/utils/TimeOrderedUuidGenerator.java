@@ -0,0 +1,51 @@
+package com.github.jutionck.utils;
+
+import com.github.jutionck.entity.ReservableId;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.id.uuid.UuidValueGenerator;
+
+import java.util.EnumSet;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Generates RFC 9562 version 7 UUIDs: a 48 bit millisecond timestamp followed by random bits. Ids
+ * created close together are close together in the primary key index, which keeps batched inserts
+ * appending to the same index pages instead of scattering across the whole tree.
+ * <p>
+ * Used through {@link TimeOrderedId}, an entity that already reserved an id with {@link ReservableId} is
+ * inserted with that id instead of a new one.
+ */
+public class TimeOrderedUuidGenerator implements UuidValueGenerator, BeforeExecutionGenerator {
+
+    public static UUID next() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long timestamp = System.currentTimeMillis();
+
+        long mostSigBits = (timestamp << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+        long leastSigBits = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    @Override
+    public UUID generateUuid(SharedSessionContractImplementor session) {
+        return next();
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                           EventType eventType) {
+        if (owner instanceof ReservableId entity && entity.getReservedId() != null) {
+            return entity.getReservedId();
+        }
+        return next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.jutionck.utils;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.UUID;
+
+public class UuidUtil {
+    /**
+     * Orders UUIDs the way PostgreSQL does (unsigned, byte by byte). Code that updates several rows in
+     * one transaction walks them in this order, the same order {@code ORDER BY id FOR UPDATE} locks them in,
+     * so concurrent writers never wait on each other in a cycle.
+     */
+    public static final Comparator<UUID> DATABASE_ORDER = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    /**
+     * Creation time of a version 7 UUID, as written by {@link TimeOrderedUuidGenerator}. Empty for ids of
+     * any other version.
+     */
+    public static Optional<Instant> timestamp(UUID id) {
+        if (id.version() != 7) {
+            return Optional.empty();
+        }
+        return Optional.of(Instant.ofEpochMilli(id.getMostSignificantBits() >>> 16));
+    }
+}
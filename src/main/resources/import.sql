@@ -0,0 +1,11 @@
+-- Run by Hibernate after it creates the schema. Index types JPA cannot declare on the entities.
+
+-- Serves order number prefix searches (LIKE 'prefix%') whatever the database collation
+CREATE INDEX idx_orders_order_number_pattern ON orders (order_number text_pattern_ops);
+
+-- Full-text product search on the generated search_vector column
+CREATE INDEX idx_products_search_vector ON products USING GIN (search_vector);
+
+-- Referral credits stay as an audit log once folded; the fold and the pending counts only read unfolded ones
+CREATE INDEX idx_referral_credits_pending ON referral_credits (created_at) WHERE folded_at IS NULL;
+CREATE INDEX idx_referral_credits_pending_code ON referral_credits (code) WHERE folded_at IS NULL;
@@ -0,0 +1,51 @@
+package com.github.jutionck.benchmark;
+
+import com.github.jutionck.service.SnowflakeOrderNumberGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Snowflake order number generator with the previous timestamp + random UUID format.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.github.jutionck.benchmark.OrderNumberGeneratorBenchmark} or from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderNumberGeneratorBenchmark {
+    private final SnowflakeOrderNumberGenerator snowflake = new SnowflakeOrderNumberGenerator(1);
+
+    @Benchmark
+    public String legacyTimestampUuid() {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
+        String random = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return "ORD-" + timestamp + "-" + random;
+    }
+
+    @Benchmark
+    public String snowflake() {
+        return snowflake.nextOrderNumber();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String snowflakeContended() {
+        return snowflake.nextOrderNumber();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OrderNumberGeneratorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.jutionck.benchmark;
+
+import com.github.jutionck.enums.VoucherType;
+import com.github.jutionck.service.PricingEngine;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prices a five-line cart with a capped percentage voucher, once with the previous {@code BigDecimal}
+ * checkout math and once with {@link PricingEngine}. Run with {@code mvn test-compile exec:java
+ * -Dexec.classpathScope=test -Dexec.mainClass=com.github.jutionck.benchmark.PricingEngineBenchmark}
+ * or from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PricingEngineBenchmark {
+    private final PricingEngine engine = new PricingEngine();
+
+    private final BigDecimal[] prices = {
+            new BigDecimal("19.99"), new BigDecimal("5.49"), new BigDecimal("129.00"),
+            new BigDecimal("0.99"), new BigDecimal("42.50")
+    };
+    private final int[] quantities = {2, 3, 1, 10, 1};
+    private final BigDecimal percentage = new BigDecimal("12.50");
+    private final BigDecimal maxDiscount = new BigDecimal("25.00");
+
+    @Benchmark
+    public BigDecimal legacyBigDecimal() {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int i = 0; i < prices.length; i++) {
+            subtotal = subtotal.add(prices[i].multiply(BigDecimal.valueOf(quantities[i])));
+        }
+
+        BigDecimal discount = subtotal.multiply(percentage).divide(BigDecimal.valueOf(100));
+        if (discount.compareTo(maxDiscount) > 0) {
+            discount = maxDiscount;
+        }
+
+        BigDecimal afterDiscount = subtotal.subtract(discount);
+        BigDecimal shipping = afterDiscount.compareTo(BigDecimal.valueOf(100)) >= 0
+                ? BigDecimal.ZERO
+                : BigDecimal.valueOf(10.00);
+        BigDecimal tax = afterDiscount.multiply(BigDecimal.valueOf(0.10));
+        return afterDiscount.add(shipping).add(tax);
+    }
+
+    @Benchmark
+    public long pricingEngine() {
+        long subtotal = 0;
+        for (int i = 0; i < prices.length; i++) {
+            subtotal += engine.lineTotal(PricingEngine.toCents(prices[i]), quantities[i]);
+        }
+
+        long discount = engine.voucherDiscount(subtotal, VoucherType.PERCENTAGE, percentage, maxDiscount);
+        return engine.price(subtotal, discount).total();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PricingEngineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.jutionck.security;
+
+import com.github.jutionck.entity.User;
+import com.github.jutionck.enums.UserRole;
+import com.github.jutionck.exceptions.UnauthorizedException;
+import com.github.jutionck.service.AsyncCheckoutService;
+import com.github.jutionck.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StompAuthenticationInterceptorTest {
+    private final AsyncCheckoutService asyncCheckoutService = mock(AsyncCheckoutService.class);
+    private final StompAuthenticationInterceptor interceptor = new StompAuthenticationInterceptor(
+            mock(JwtTokenProvider.class), mock(UserService.class), mockProvider(asyncCheckoutService));
+    private final MessageChannel channel = mock(MessageChannel.class);
+
+    @Test
+    void refusesForgedSendToOrderTopics() {
+        User customer = user(UserRole.CUSTOMER);
+
+        assertThatThrownBy(() -> interceptor.preSend(send(customer, "/topic/orders/" + UUID.randomUUID()), channel))
+                .isInstanceOf(UnauthorizedException.class);
+        assertThatThrownBy(() -> interceptor.preSend(send(customer, "/topic/seller/" + UUID.randomUUID() + "/orders"), channel))
+                .isInstanceOf(UnauthorizedException.class);
+        // Not even to its own topic
+        assertThatThrownBy(() -> interceptor.preSend(send(customer, "/topic/orders/" + customer.getId()), channel))
+                .isInstanceOf(UnauthorizedException.class);
+    }
+
+    @Test
+    void refusesSendOutsideApplicationDestinations() {
+        User admin = user(UserRole.ADMIN);
+
+        assertThatThrownBy(() -> interceptor.preSend(send(admin, "/topic/orders/" + UUID.randomUUID()), channel))
+                .isInstanceOf(UnauthorizedException.class);
+        assertThatThrownBy(() -> interceptor.preSend(send(admin, "/queue/anything"), channel))
+                .isInstanceOf(UnauthorizedException.class);
+        assertThatThrownBy(() -> interceptor.preSend(send(admin, null), channel))
+                .isInstanceOf(UnauthorizedException.class);
+    }
+
+    @Test
+    void allowsSendToApplicationDestinations() {
+        Message<byte[]> message = send(user(UserRole.CUSTOMER), "/app/orders");
+
+        assertThat(interceptor.preSend(message, channel)).isSameAs(message);
+    }
+
+    @Test
+    void keepsOrderStatusAndCheckoutTicketTopicsApart() {
+        User customer = user(UserRole.CUSTOMER);
+        UUID ticket = UUID.randomUUID();
+        when(asyncCheckoutService.isTicketOwner(ticket, customer.getId())).thenReturn(true);
+
+        Message<byte[]> ownOrders = subscribe(customer, "/topic/orders/" + customer.getId());
+        Message<byte[]> ownTicket = subscribe(customer, "/topic/checkouts/" + ticket);
+        assertThat(interceptor.preSend(ownOrders, channel)).isSameAs(ownOrders);
+        assertThat(interceptor.preSend(ownTicket, channel)).isSameAs(ownTicket);
+
+        // A ticket is not an order topic, and a customer id is not a ticket
+        assertThatThrownBy(() -> interceptor.preSend(subscribe(customer, "/topic/orders/" + ticket), channel))
+                .isInstanceOf(UnauthorizedException.class);
+        assertThatThrownBy(() -> interceptor.preSend(subscribe(customer, "/topic/checkouts/" + customer.getId()), channel))
+                .isInstanceOf(UnauthorizedException.class);
+    }
+
+    private Message<byte[]> send(User user, String destination) {
+        return message(StompCommand.SEND, user, destination);
+    }
+
+    private Message<byte[]> subscribe(User user, String destination) {
+        return message(StompCommand.SUBSCRIBE, user, destination);
+    }
+
+    private Message<byte[]> message(StompCommand command, User user, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setDestination(destination);
+        accessor.setUser(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private User user(UserRole role) {
+        User user = User.builder()
+                .email(role.name().toLowerCase() + "@example.com")
+                .role(role)
+                .build();
+        ReflectionTestUtils.setField(user, "id", UUID.randomUUID());
+        return user;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ObjectProvider<AsyncCheckoutService> mockProvider(AsyncCheckoutService asyncCheckoutService) {
+        ObjectProvider<AsyncCheckoutService> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(asyncCheckoutService);
+        return provider;
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.jutionck.service;
+
+import com.github.jutionck.dto.response.ProductFacetRow;
+import com.github.jutionck.dto.response.ProductSearchRow;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvertedIndexTest {
+    private static final UUID HEADPHONES = UUID.randomUUID();
+    private static final UUID CABLE = UUID.randomUUID();
+    private static final UUID STAND = UUID.randomUUID();
+
+    @Test
+    void matchesEveryWordAsPrefixAndRanksNameMatchesFirst() {
+        InvertedIndex index = catalog();
+
+        assertThat(search(index, "wirel head")).containsExactly(HEADPHONES, CABLE);
+        assertThat(search(index, "head")).containsExactly(HEADPHONES, STAND, CABLE);
+        assertThat(search(index, "keyboard")).isEmpty();
+    }
+
+    @Test
+    void appliesCategoryBrandAndPriceFilters() {
+        InvertedIndex index = catalog();
+
+        assertThat(ids(index, index.search(List.of("head"), "audio", null, null, new BigDecimal("100")))).containsExactly(CABLE);
+        assertThat(ids(index, index.search(List.of(), null, "woody", null, null))).containsExactly(STAND);
+        assertThat(ids(index, index.search(List.of(), null, null, new BigDecimal("10"), null))).containsExactly(HEADPHONES, STAND);
+    }
+
+    @Test
+    void replacesUpdatedAndDropsRemovedProducts() {
+        InvertedIndex index = catalog();
+
+        index.add(new ProductSearchRow(STAND, "Wireless charging dock", "Woody", "Desk", null, new BigDecimal("29.00")));
+        index.remove(HEADPHONES);
+
+        assertThat(search(index, "wireless")).containsExactly(STAND, CABLE);
+        assertThat(search(index, "stand")).isEmpty();
+        assertThat(index.documentCount()).isEqualTo(2);
+    }
+
+    @Test
+    void compactsDeletedDocumentsAndKeepsAnsweringTheSameWay() {
+        InvertedIndex index = catalog();
+        long initialBytes = index.postingBytes();
+
+        for (int i = 0; i < 100; i++) {
+            index.add(new ProductSearchRow(CABLE, "USB Cable", "Sonix", "Audio",
+                    "Works with wireless headphones", new BigDecimal("9.00")));
+        }
+
+        assertThat(search(index, "wireless")).containsExactly(HEADPHONES, CABLE);
+        assertThat(ids(index, index.search(List.of("head"), "audio", "sonix", null, null))).containsExactly(HEADPHONES, CABLE);
+        assertThat(ids(index, index.search(List.of(), "desk", null, null, null))).containsExactly(STAND);
+        assertThat(index.documentCount()).isEqualTo(3);
+        // At most a quarter of the documents are left deleted between compactions
+        assertThat(index.postingBytes()).isLessThan(initialBytes * 2);
+    }
+
+    @Test
+    void countsFacetsOfMatchedDocumentsWithTheirOriginalCase() {
+        InvertedIndex index = catalog();
+
+        int[] documents = index.search(List.of("head"), null, null, null, null);
+        List<ProductFacetRow> rows = index.countFacets(documents, List.of(new BigDecimal("29.00"), new BigDecimal("100")));
+
+        assertThat(rows).containsExactlyInAnyOrder(
+                new ProductFacetRow("Audio", "Sonix", 2, 1L),
+                new ProductFacetRow("Audio", "Sonix", 0, 1L),
+                new ProductFacetRow("Desk", "Woody", 1, 1L));
+    }
+
+    @Test
+    void decodesLargeDocumentGaps() {
+        InvertedIndex.PostingList list = new InvertedIndex.PostingList();
+        int[] documents = {0, 1, 127, 128, 16_384, 2_000_000};
+        for (int document : documents) {
+            list.add(document, InvertedIndex.NAME);
+        }
+
+        int[] decoded = new int[documents.length];
+        int[] count = {0};
+        list.forEach((document, fields) -> decoded[count[0]++] = document);
+
+        assertThat(decoded).containsExactly(documents);
+        assertThat(list.length()).isLessThan(documents.length * 5);
+    }
+
+    private InvertedIndex catalog() {
+        InvertedIndex index = new InvertedIndex();
+        index.add(new ProductSearchRow(HEADPHONES, "Wireless Headphones Pro", "Sonix", "Audio",
+                "Noise cancelling over-ear", new BigDecimal("199.00")));
+        index.add(new ProductSearchRow(CABLE, "USB Cable", "Sonix", "Audio",
+                "Works with wireless headphones", new BigDecimal("9.00")));
+        index.add(new ProductSearchRow(STAND, "Headphone stand", "Woody", "Desk",
+                "Oak", new BigDecimal("29.00")));
+        return index;
+    }
+
+    private List<UUID> search(InvertedIndex index, String text) {
+        return ids(index, index.search(InvertedIndex.tokenize(text), null, null, null, null));
+    }
+
+    private List<UUID> ids(InvertedIndex index, int[] documents) {
+        return Arrays.stream(documents).mapToObj(index::productId).toList();
+    }
+}
@@ -0,0 +1,124 @@
+package com.github.jutionck.service;
+
+import com.github.jutionck.entity.Order;
+import com.github.jutionck.entity.User;
+import com.github.jutionck.enums.PaymentMethod;
+import com.github.jutionck.enums.UserRole;
+import com.github.jutionck.repository.OrderRepository;
+import jakarta.persistence.PersistenceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the startup conversion against a real PostgreSQL and checks what the partitioned layout has to
+ * keep: single-order lookups, globally unique order numbers and readable archived months.
+ */
+@DataJpaTest(properties = "order.partitioning.enabled=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import(OrderPartitionManager.class)
+class OrderPartitionManagerTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private OrderPartitionManager partitionManager;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private User customer;
+
+    @BeforeEach
+    void setUp() {
+        customer = entityManager.persist(User.builder()
+                .email("customer@example.com")
+                .password("password")
+                .firstName("Test")
+                .lastName("User")
+                .role(UserRole.CUSTOMER)
+                .enabled(true)
+                .build());
+    }
+
+    @Test
+    void convertsOrdersAndItemsToPartitionedTablesOnStartup() {
+        Integer partitioned = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_partitioned_table " +
+                "WHERE partrelid IN (to_regclass('orders'), to_regclass('order_items'))", Integer.class);
+        assertThat(partitioned).isEqualTo(2);
+
+        Order order = persistOrder("ORD-TEST-1");
+        entityManager.clear();
+
+        LocalDateTime createdAt = order.getCreatedAt();
+        assertThat(orderRepository.findByIdCreatedBetween(order.getId(), createdAt.minusDays(1), createdAt.plusDays(1)))
+                .isPresent();
+    }
+
+    @Test
+    void rejectsADuplicateOrderNumberWithAnotherCreationTime() {
+        persistOrder("ORD-TEST-1");
+
+        assertThatThrownBy(() -> persistOrder("ORD-TEST-1")).isInstanceOf(PersistenceException.class);
+    }
+
+    @Test
+    void archivesClosedMonthsAndKeepsThemReadable() {
+        YearMonth old = YearMonth.now().minusMonths(14);
+        partitionManager.createPartitions(old, old);
+
+        // Copy a fresh order into the old month as a delivered one
+        Order order = persistOrder("ORD-TEST-1");
+        jdbcTemplate.execute("CREATE TEMP TABLE old_order AS SELECT * FROM orders WHERE id = '" + order.getId() + "'");
+        jdbcTemplate.update("UPDATE old_order SET id = ?, order_number = 'ORD-TEST-OLD', status = 'DELIVERED', created_at = ?",
+                UUID.randomUUID(), old.atDay(15).atStartOfDay());
+        jdbcTemplate.execute("INSERT INTO orders SELECT * FROM old_order");
+
+        partitionManager.maintain();
+
+        String schema = jdbcTemplate.queryForObject("SELECT n.nspname FROM pg_class c " +
+                "JOIN pg_namespace n ON n.oid = c.relnamespace WHERE c.relname = ?",
+                String.class, "orders_" + old.format(DateTimeFormatter.ofPattern("'p'yyyy_MM")));
+        assertThat(schema).isEqualTo("archive");
+        assertThat(orderRepository.findByOrderNumber("ORD-TEST-OLD")).isPresent();
+    }
+
+    private Order persistOrder(String orderNumber) {
+        Order order = entityManager.persist(Order.builder()
+                .orderNumber(orderNumber)
+                .customer(customer)
+                .subtotal(new BigDecimal("30.00"))
+                .total(new BigDecimal("30.00"))
+                .paymentMethod(PaymentMethod.CREDIT_CARD)
+                .build());
+        entityManager.flush();
+        return order;
+    }
+}
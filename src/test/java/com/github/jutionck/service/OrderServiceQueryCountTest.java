@@ -0,0 +1,254 @@
+package com.github.jutionck.service;
+
+import com.github.jutionck.dto.request.CreateOrderRequest;
+import com.github.jutionck.dto.response.BatchOrderResponse;
+import com.github.jutionck.dto.response.OrderResponse;
+import com.github.jutionck.entity.Address;
+import com.github.jutionck.entity.Order;
+import com.github.jutionck.entity.OrderItem;
+import com.github.jutionck.entity.OrderSeller;
+import com.github.jutionck.entity.Product;
+import com.github.jutionck.entity.User;
+import com.github.jutionck.enums.PaymentMethod;
+import com.github.jutionck.enums.UserRole;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Guards the order read path against N+1 queries: a page of orders, with customer, items and products,
+ * must cost the same number of statements no matter how many orders and items it holds. Also checks that
+ * creating orders writes each order row once, with its snapshot in the INSERT.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Import({OrderService.class, PricingEngine.class})
+class OrderServiceQueryCountTest {
+    private static final int ORDERS = 25;
+    private static final int ITEMS_PER_ORDER = 3;
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 20);
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @MockitoBean
+    private ReferralService referralService;
+
+    @MockitoBean
+    private InventoryLedger inventoryLedger;
+
+    @MockitoBean
+    private VoucherRedemptionService voucherRedemptionService;
+
+    @MockitoBean
+    private OrderNumberGenerator orderNumberGenerator;
+
+    @MockitoBean
+    private OrderSellerCache orderSellerCache;
+
+    @MockitoBean
+    private ProductDetailCache productDetailCache;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private User customer;
+    private User seller;
+    private User admin;
+    private List<Product> products;
+
+    @BeforeEach
+    void setUp() {
+        customer = entityManager.persist(user("customer@example.com", UserRole.CUSTOMER));
+        seller = entityManager.persist(user("seller@example.com", UserRole.SELLER));
+        admin = entityManager.persist(user("admin@example.com", UserRole.ADMIN));
+
+        products = new ArrayList<>();
+        for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+            products.add(entityManager.persist(Product.builder()
+                    .name("Product " + i)
+                    .price(new BigDecimal("10.00"))
+                    .category("Electronics")
+                    .brand("Acme")
+                    .stock(100)
+                    .seller(seller)
+                    .build()));
+        }
+
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = Order.builder()
+                    .orderNumber("ORD-TEST-" + i)
+                    .customer(customer)
+                    .subtotal(new BigDecimal("30.00"))
+                    .total(new BigDecimal("30.00"))
+                    .paymentMethod(PaymentMethod.CREDIT_CARD)
+                    .build();
+            for (Product product : products) {
+                order.getItems().add(OrderItem.builder()
+                        .order(order)
+                        .product(product)
+                        .quantity(1)
+                        .price(product.getPrice())
+                        .subtotal(product.getPrice())
+                        .build());
+            }
+            orderService.writeSnapshot(order);
+            entityManager.persist(order);
+            entityManager.persist(OrderSeller.builder()
+                    .order(order)
+                    .seller(seller)
+                    .status(order.getStatus())
+                    .createdAt(order.getCreatedAt())
+                    .sellerSubtotal(order.getSubtotal())
+                    .build());
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void customerOrdersPageUsesConstantQueries() {
+        Page<OrderResponse> page = orderService.getCustomerOrders(customer, FIRST_PAGE);
+
+        assertFullyMapped(page);
+        // page and count, customers, items and products come from the snapshots
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void sellerOrdersPageUsesConstantQueries() {
+        Page<OrderResponse> page = orderService.getSellerOrders(seller, FIRST_PAGE);
+
+        assertFullyMapped(page);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void allOrdersPageUsesConstantQueries() {
+        Page<OrderResponse> page = orderService.getAllOrders(FIRST_PAGE);
+
+        assertFullyMapped(page);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void orderDetailUsesSingleQuery() {
+        Page<OrderResponse> page = orderService.getAllOrders(FIRST_PAGE);
+        entityManager.clear();
+        statistics.clear();
+
+        OrderResponse order = orderService.getOrderById(page.getContent().getFirst().getId(), admin);
+
+        assertThat(order.getItems()).hasSize(ITEMS_PER_ORDER);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void createOrderInsertsTheOrderWithItsSnapshot() {
+        when(orderNumberGenerator.nextOrderNumber()).thenReturn("ORD-NEW-1");
+
+        OrderResponse created = orderService.createOrder(orderRequest(), customer);
+        entityManager.flush();
+
+        assertOrdersWrittenOnce(1);
+        entityManager.clear();
+        Order stored = entityManager.find(Order.class, created.getId());
+        assertThat(stored.getSnapshot().getId()).isEqualTo(stored.getId());
+        assertThat(stored.getSnapshot().getItems())
+                .extracting(OrderResponse.OrderItemResponse::getId)
+                .containsExactlyInAnyOrderElementsOf(stored.getItems().stream().map(OrderItem::getId).toList());
+    }
+
+    @Test
+    void createOrdersInsertsEveryOrderWithItsSnapshot() {
+        when(orderNumberGenerator.nextOrderNumber()).thenReturn("ORD-NEW-1", "ORD-NEW-2", "ORD-NEW-3");
+
+        BatchOrderResponse batch = orderService.createOrders(
+                List.of(orderRequest(), orderRequest(), orderRequest()), customer);
+        entityManager.flush();
+
+        assertThat(batch.getSucceeded()).isEqualTo(3);
+        assertOrdersWrittenOnce(3);
+    }
+
+    // One INSERT per order and no UPDATE afterwards to fill in the snapshot
+    private void assertOrdersWrittenOnce(int orders) {
+        EntityStatistics orderStatistics = statistics.getEntityStatistics(Order.class.getName());
+        assertThat(orderStatistics.getInsertCount()).isEqualTo(orders);
+        assertThat(orderStatistics.getUpdateCount()).isZero();
+    }
+
+    private CreateOrderRequest orderRequest() {
+        return CreateOrderRequest.builder()
+                .items(products.stream()
+                        .map(product -> CreateOrderRequest.OrderItemRequest.builder()
+                                .productId(product.getId())
+                                .quantity(1)
+                                .build())
+                        .toList())
+                .shippingAddress(Address.builder()
+                        .fullName("Test User")
+                        .address("Jl. Test 1")
+                        .city("Jakarta")
+                        .country("Indonesia")
+                        .build())
+                .paymentMethod(PaymentMethod.CREDIT_CARD)
+                .build();
+    }
+
+    private void assertFullyMapped(Page<OrderResponse> page) {
+        assertThat(page.getTotalElements()).isEqualTo(ORDERS);
+        assertThat(page.getContent()).hasSize(FIRST_PAGE.getPageSize());
+        assertThat(page.getContent()).allSatisfy(order -> {
+            assertThat(order.getCustomer().getEmail()).isEqualTo("customer@example.com");
+            assertThat(order.getItems()).hasSize(ITEMS_PER_ORDER);
+            assertThat(order.getItems()).allSatisfy(item -> assertThat(item.getProduct().getName()).isNotNull());
+        });
+    }
+
+    private static User user(String email, UserRole role) {
+        return User.builder()
+                .email(email)
+                .password("password")
+                .firstName("Test")
+                .lastName("User")
+                .role(role)
+                .enabled(true)
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.jutionck.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeOrderNumberGeneratorTest {
+
+    @Test
+    void generatesUniqueNumbersAcrossThreads() throws Exception {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(7);
+        int threads = 8;
+        int perThread = 50_000;
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    String previous = "";
+                    boolean ordered = true;
+                    for (int i = 0; i < perThread; i++) {
+                        String number = generator.nextOrderNumber();
+                        ordered &= number.compareTo(previous) > 0;
+                        numbers.add(number);
+                        previous = number;
+                    }
+                    return ordered;
+                }));
+            }
+            start.countDown();
+
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).as("numbers increase within a thread").isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(numbers).hasSize(threads * perThread);
+    }
+
+    @Test
+    void numbersHaveFixedWidthAndSortByCreation() {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(1023);
+
+        String first = generator.nextOrderNumber();
+        String second = generator.nextOrderNumber();
+
+        assertThat(first).matches("ORD-[0-9A-HJKMNP-TV-Z]{13}");
+        assertThat(second).hasSameSizeAs(first).isGreaterThan(first);
+    }
+
+    @Test
+    void encodingPreservesNumericOrder() {
+        assertThat(SnowflakeOrderNumberGenerator.encode(31)).isLessThan(SnowflakeOrderNumberGenerator.encode(32));
+        assertThat(SnowflakeOrderNumberGenerator.encode(Long.MAX_VALUE))
+                .isLessThan(SnowflakeOrderNumberGenerator.encode(-1L));
+    }
+
+    @Test
+    void rejectsNodeIdOutOfRange() {
+        assertThatThrownBy(() -> new SnowflakeOrderNumberGenerator(1024))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,146 @@
+package com.github.jutionck.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedStockTest {
+
+    @Test
+    void takesFromOtherStripesAndNeverOversells() throws Exception {
+        InventoryLedger.StripedStock stock = new InventoryLedger.StripedStock(8, 1_000);
+        int threads = 16;
+        AtomicLong sold = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 1_000; i++) {
+                        if (stock.tryTake(3)) {
+                            sold.addAndGet(3);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(sold.get()).isEqualTo(999);
+        assertThat(stock.available()).isEqualTo(1);
+        assertThat(stock.drainPending()).isEqualTo(-999);
+        assertThat(stock.tryTake(2)).isFalse();
+        assertThat(stock.tryTake(1)).isTrue();
+    }
+
+    @Test
+    void keepsAvailableAndPendingInStepUnderTakesAndGiveBacks() throws Exception {
+        InventoryLedger.StripedStock stock = new InventoryLedger.StripedStock(4, 500);
+        int threads = 8;
+        AtomicLong flushed = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 20_000; i++) {
+                        int quantity = 1 + i % 5;
+                        // Every other reservation rolls back and hands its stock back
+                        if (stock.tryTake(quantity) && i % 2 == 0) {
+                            stock.give(quantity);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            Future<?> flusher = executor.submit(() -> {
+                start.await();
+                while (results.stream().anyMatch(result -> !result.isDone())) {
+                    flushed.addAndGet(stock.drainPending());
+                }
+                return null;
+            });
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+            flusher.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        flushed.addAndGet(stock.drainPending());
+
+        assertThat(stock.available()).isBetween(0L, 500L);
+        assertThat(500 + flushed.get()).isEqualTo(stock.available());
+    }
+
+    @Test
+    void resetMovesStockAcrossEveryStripeWithoutGoingNegative() {
+        InventoryLedger.StripedStock stock = new InventoryLedger.StripedStock(2, 10);
+
+        stock.reset(2);
+
+        assertThat(stock.available()).isEqualTo(2);
+        assertThat(stock.tryTake(3)).isFalse();
+        assertThat(stock.tryTake(2)).isTrue();
+        assertThat(stock.available()).isZero();
+        assertThat(stock.drainPending()).isEqualTo(-10);
+    }
+
+    @Test
+    void resetRacingWithCheckoutsKeepsTheLedgerAndTheRowInStep() throws Exception {
+        InventoryLedger.StripedStock stock = new InventoryLedger.StripedStock(8, 10_000);
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 10_000; i++) {
+                        stock.tryTake(1);
+                    }
+                    return null;
+                }));
+            }
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 1_000; i++) {
+                    stock.reset(i % 50);
+                }
+                return null;
+            }));
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(stock.available()).isBetween(0L, 49L);
+        assertThat(10_000 + stock.drainPending()).isEqualTo(stock.available());
+    }
+}